@@ -0,0 +1,70 @@
+package redxax.oxy.terminal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighlightEngineBenchmark {
+    private static final int LINES = 4096;
+    private static final String[] PLAYERS = {"Steve", "Alex", "Notch", "jeb_", "Dinnerbone", "Grumm"};
+    private static final String[] TEMPLATES = {
+            "[%s] [Server thread/INFO]: %s joined the game",
+            "[%s] [Server thread/INFO]: %s lost connection: Disconnected",
+            "[%s] [Server thread/WARN]: Can't keep up! Is the server overloaded? Running 2046ms or 40 ticks behind",
+            "[%s] [Server thread/INFO]: [WorldEdit] %s used //set at -128, 64, 2048",
+            "[%s] [User Authenticator #1/INFO]: UUID of player %s is 069a79f4-44e9-4726-a5be-fca90e38aaf5",
+            "[%s] [Server thread/INFO]: %s[/192.168.1.42:51234] logged in with entity id 412 at (12.5, 70.0, -340.25)",
+            "[%s] [Server thread/ERROR]: Could not pass event PlayerInteractEvent to Essentials for %s",
+            "[%s] [Worker-Main-3/INFO]: Preparing spawn area: 83%% done, %s waiting",
+            "[%s] [Server thread/INFO]: <%s> anyone seen the diamonds I left at spawn?",
+            "[%s] [Server thread/WARN]: [LuckPerms] Permission check for %s took 12ms, caching disabled",
+            "[%s] [Netty Epoll Server IO #2/INFO]: Timed out %s after 30000ms of inactivity",
+            "        at net.minecraft.server.MinecraftServer.runServer(MinecraftServer.java:%s) ~[server.jar:?] %s"
+    };
+
+    private HighlightEngine engine;
+    private String[] lines;
+    private long[] styles;
+
+    @Setup
+    public void setup() {
+        List<HighlightRule> rules = new ArrayList<>(HighlightEngine.defaultRules());
+        rules.set(3, new HighlightRule("players", HighlightRule.KEYWORD, List.of(PLAYERS), "#55FFFF", true, true, false));
+        for (int i = rules.size(); i < 50; i++) {
+            rules.add(new HighlightRule("rule-" + i, HighlightRule.KEYWORD, List.of("keyword" + i, "Plugin" + i, "event" + i), "#" + String.format("%06X", i * 0x050B11 & 0xFFFFFF), i % 2 == 0, i % 3 != 0, i % 5 == 0));
+        }
+        engine = new HighlightEngine(rules);
+        Random random = new Random(42);
+        lines = new String[LINES];
+        int longest = 0;
+        for (int i = 0; i < LINES; i++) {
+            String time = String.format("%02d:%02d:%02d", random.nextInt(24), random.nextInt(60), random.nextInt(60));
+            String template = TEMPLATES[random.nextInt(TEMPLATES.length)];
+            String line = String.format(template, time, PLAYERS[random.nextInt(PLAYERS.length)]);
+            if (random.nextInt(4) == 0) {
+                line += " keyword" + random.nextInt(60);
+            }
+            lines[i] = line;
+            longest = Math.max(longest, line.length());
+        }
+        styles = new long[longest];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public void highlightMixedLog(Blackhole blackhole) {
+        for (String line : lines) {
+            blackhole.consume(engine.highlight(line, styles));
+        }
+    }
+}
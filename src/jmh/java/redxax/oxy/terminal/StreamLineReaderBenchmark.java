@@ -0,0 +1,102 @@
+package redxax.oxy.terminal;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StreamLineReaderBenchmark {
+    private static final int MEGABYTES = 8;
+    private static final long BYTES_PER_INVOCATION = MEGABYTES * 1024L * 1024L;
+
+    @Param({"50", "0"})
+    public int producerMegabytesPerSecond;
+
+    @Param({"true", "false"})
+    public boolean lineBuffered;
+
+    private byte[] pattern;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder log = new StringBuilder();
+        while (log.length() < 4 * 1024 * 1024) {
+            int kind = random.nextInt(20);
+            log.append("[12:").append(random.nextInt(60)).append(":").append(random.nextInt(60)).append("] [Server thread/INFO]: ");
+            if (kind == 0) {
+                log.append("x".repeat(20_000));
+            } else if (kind < 5) {
+                log.append("Spieler Müller betrat die Welt 世界 🎉 ").append(random.nextInt(1000));
+            } else {
+                log.append("Saving chunks for level 'ServerLevel[world]'/minecraft:overworld ").append(random.nextInt(100_000));
+            }
+            log.append('\n');
+        }
+        pattern = log.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MEGABYTES)
+    public long decodeSyntheticLog(Blackhole blackhole) throws IOException {
+        StreamLineReader reader = new StreamLineReader(new SyntheticLogStream(pattern, BYTES_PER_INVOCATION, producerMegabytesPerSecond * 1024L * 1024L),
+                StreamLineReader.DEFAULT_BUFFER_BYTES, lineBuffered);
+        String batch;
+        while ((batch = reader.readBatch()) != null) {
+            blackhole.consume(batch);
+        }
+        return reader.getLinesRead();
+    }
+
+    static class SyntheticLogStream extends InputStream {
+        private final byte[] pattern;
+        private final long total;
+        private final long bytesPerSecond;
+        private final long start = System.nanoTime();
+        private long produced = 0;
+
+        SyntheticLogStream(byte[] pattern, long total, long bytesPerSecond) {
+            this.pattern = pattern;
+            this.total = total;
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (produced >= total) {
+                return -1;
+            }
+            long available = total - produced;
+            if (bytesPerSecond > 0) {
+                long allowed;
+                while ((allowed = (System.nanoTime() - start) * bytesPerSecond / 1_000_000_000L - produced) <= 0) {
+                    LockSupport.parkNanos(Math.max(10_000L, -allowed * 1_000_000_000L / bytesPerSecond));
+                }
+                available = Math.min(available, allowed);
+            }
+            int count = (int) Math.min(length, available);
+            int position = (int) (produced % pattern.length);
+            count = Math.min(count, pattern.length - position);
+            System.arraycopy(pattern, position, target, offset, count);
+            produced += count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package redxax.oxy;
+
+public class FrameTimeGovernor {
+    public static final long DEFAULT_BUDGET_NANOS = 20_000_000L;
+    private static final int MAX_LEVEL = 3;
+    private static final long EVALUATE_INTERVAL_NANOS = 250_000_000L;
+    private static final long RESTORE_AFTER_NANOS = 2_000_000_000L;
+    private static final long MAX_FRAME_NANOS = 1_000_000_000L;
+    private static final double HEADROOM = 0.75;
+    private static final TaskScheduler.Lane[] GOVERNED_LANES = {TaskScheduler.Lane.IO, TaskScheduler.Lane.CPU, TaskScheduler.Lane.NETWORK};
+    private volatile long budgetNanos = DEFAULT_BUDGET_NANOS;
+    private volatile boolean enabled = true;
+    private volatile int level = 0;
+    private long lastFrame = 0;
+    private double smoothedNanos = 0;
+    private long lastEvaluation = 0;
+    private long headroomSince = 0;
+    private long frames = 0;
+    private long slowFrames = 0;
+    private long throttleSteps = 0;
+
+    public void onFrame(long now) {
+        long frame = lastFrame == 0 ? 0 : now - lastFrame;
+        lastFrame = now;
+        if (frame <= 0 || frame > MAX_FRAME_NANOS) {
+            return;
+        }
+        frames++;
+        if (frame > budgetNanos) {
+            slowFrames++;
+        }
+        smoothedNanos = smoothedNanos == 0 ? frame : smoothedNanos + (frame - smoothedNanos) / 8;
+        if (!enabled || now - lastEvaluation < EVALUATE_INTERVAL_NANOS) {
+            return;
+        }
+        lastEvaluation = now;
+        if (smoothedNanos > budgetNanos) {
+            headroomSince = 0;
+            if (level < MAX_LEVEL) {
+                setLevel(level + 1);
+                throttleSteps++;
+            }
+        } else if (smoothedNanos < budgetNanos * HEADROOM && level > 0) {
+            if (headroomSince == 0) {
+                headroomSince = now;
+            } else if (now - headroomSince >= RESTORE_AFTER_NANOS) {
+                setLevel(level - 1);
+                headroomSince = now;
+            }
+        } else {
+            headroomSince = 0;
+        }
+    }
+
+    private void setLevel(int newLevel) {
+        level = newLevel;
+        for (TaskScheduler.Lane lane : GOVERNED_LANES) {
+            TaskScheduler.setLimit(lane, Math.max(1, lane.defaultLimit() >> newLevel));
+        }
+        TaskScheduler.setPriority(TaskScheduler.Lane.CPU, newLevel > 0 ? Thread.MIN_PRIORITY : Thread.NORM_PRIORITY);
+    }
+
+    public long scaleBudget(long nanos) {
+        return Math.max(nanos >> MAX_LEVEL, nanos >> level);
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public void setBudgetNanos(long budgetNanos) {
+        this.budgetNanos = Math.max(1_000_000L, budgetNanos);
+        headroomSince = 0;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            setLevel(0);
+        }
+    }
+
+    public String describe() {
+        StringBuilder out = new StringBuilder(String.format("Frame governor %s: budget %.1fms, smoothed frame %.1fms, throttle level %d/%d (%d steps)\n",
+                enabled ? "on" : "off", budgetNanos / 1e6, smoothedNanos / 1e6, level, MAX_LEVEL, throttleSteps));
+        out.append(String.format("Frames over budget: %d of %d\n", slowFrames, frames));
+        for (TaskScheduler.Lane lane : GOVERNED_LANES) {
+            out.append(String.format("  %-8s limit %d of %d\n", lane.label(), TaskScheduler.getLimit(lane), lane.defaultLimit()));
+        }
+        return out.toString();
+    }
+}
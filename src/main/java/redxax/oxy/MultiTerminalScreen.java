@@ -32,6 +32,12 @@ public class MultiTerminalScreen extends Screen {
     long lastRenameInputTime = 0;
     int renameCursorPos = 0;
 
+    boolean isSearching = false;
+    StringBuilder searchBuffer = new StringBuilder();
+    int searchCursorPos = 0;
+    boolean searchRegex = false;
+    String submittedSearch = null;
+
     private boolean closedViaEscape = false;
     private String warningMessage = "";
 
@@ -131,6 +137,8 @@ public class MultiTerminalScreen extends Screen {
     private void setActiveTerminal(int index) {
         if (index >= 0 && index < terminals.size()) {
             activeTerminalIndex = index;
+            submittedSearch = null;
+            terminals.get(index).renderer.markActive();
         }
     }
 
@@ -165,7 +173,7 @@ public class MultiTerminalScreen extends Screen {
 
         List<TabInfo> tabInfos = new ArrayList<>();
         for (int i = 0; i < terminals.size(); i++) {
-            String tName = tabNames.get(i);
+            String tName = tabLabel(i);
             int tw = minecraftClient.textRenderer.getWidth(tName);
             int paddingH = 10;
             int tabW = Math.max(tw + paddingH * 2, 60);
@@ -256,6 +264,9 @@ public class MultiTerminalScreen extends Screen {
         if (!terminals.isEmpty()) {
             TerminalInstance activeTerminal = terminals.get(activeTerminalIndex);
             activeTerminal.render(context, Math.max(effectiveWidth, 50), this.height, scale);
+            if (isSearching) {
+                renderSearchBar(context, activeTerminal, contentXStart + Math.max(effectiveWidth, 50));
+            }
         }
 
         if (showSnippetsPanel) {
@@ -591,7 +602,7 @@ public class MultiTerminalScreen extends Screen {
         }
 
         for (int i = 0; i < terminals.size(); i++) {
-            String tName = tabNames.get(i);
+            String tName = tabLabel(i);
             minecraftClient.textRenderer.getWidth(tName);
         }
         int plusW = 20;
@@ -599,7 +610,7 @@ public class MultiTerminalScreen extends Screen {
         int tabAreaHeight = TAB_HEIGHT;
         float renderX = 5 - tabScrollOffset;
         for (int i = 0; i < terminals.size(); i++) {
-            String tName = tabNames.get(i);
+            String tName = tabLabel(i);
             int tw = minecraftClient.textRenderer.getWidth(tName);
             int paddingH = 10;
             int tabW = Math.max(tw + paddingH * 2, 60);
@@ -779,7 +790,7 @@ public class MultiTerminalScreen extends Screen {
         int availableTabWidth = this.width - (showSnippetsPanel ? snippetPanelWidth : 0) - 15 - 20;
         int totalTabsWidth=0;
         for (int i=0;i<terminals.size();i++) {
-            String tName = tabNames.get(i);
+            String tName = tabLabel(i);
             int tw = minecraftClient.textRenderer.getWidth(tName);
             int paddingH = 10;
             int tabW = Math.max(tw+paddingH*2,60);
@@ -946,6 +957,19 @@ public class MultiTerminalScreen extends Screen {
         }
 
         boolean ctrl = (modifiers & GLFW.GLFW_MOD_CONTROL) != 0;
+        boolean shift = (modifiers & GLFW.GLFW_MOD_SHIFT) != 0;
+        if (isSearching) {
+            return handleSearchKey(keyCode, ctrl, shift);
+        }
+        if (ctrl && keyCode == GLFW.GLFW_KEY_F) {
+            isSearching = true;
+            searchCursorPos = searchBuffer.length();
+            return true;
+        }
+        if (keyCode == GLFW.GLFW_KEY_F3 && !terminals.isEmpty()) {
+            terminals.get(activeTerminalIndex).renderer.jumpToSearchResult(shift ? -1 : 1);
+            return true;
+        }
         if (keyCode == GLFW.GLFW_KEY_ESCAPE) {
             closedViaEscape = true;
             this.close();
@@ -1046,6 +1070,13 @@ public class MultiTerminalScreen extends Screen {
             return true;
         }
         if (snippetRecordingKeys) return true;
+        if (isSearching) {
+            if (chr >= 32 && chr != 127) {
+                searchBuffer.insert(searchCursorPos, chr);
+                searchCursorPos++;
+            }
+            return true;
+        }
         if (snippetPopupActive) {
             snippetLastInputTime = System.currentTimeMillis();
             if (chr == '\r' || chr == '\b') {
@@ -1141,6 +1172,84 @@ public class MultiTerminalScreen extends Screen {
         }
     }
 
+    private boolean handleSearchKey(int keyCode, boolean ctrl, boolean shift) {
+        TerminalRenderer renderer = terminals.isEmpty() ? null : terminals.get(activeTerminalIndex).renderer;
+        switch (keyCode) {
+            case GLFW.GLFW_KEY_ESCAPE -> {
+                isSearching = false;
+                submittedSearch = null;
+                if (renderer != null) renderer.clearSearch();
+            }
+            case GLFW.GLFW_KEY_ENTER, GLFW.GLFW_KEY_KP_ENTER, GLFW.GLFW_KEY_F3 -> {
+                if (renderer == null) return true;
+                String query = searchBuffer.toString();
+                String key = (searchRegex ? "/" : "") + query;
+                if (!key.equals(submittedSearch)) {
+                    renderer.startSearch(query, searchRegex);
+                    submittedSearch = key;
+                } else {
+                    renderer.jumpToSearchResult(shift ? -1 : 1);
+                }
+            }
+            case GLFW.GLFW_KEY_BACKSPACE -> {
+                if (searchCursorPos > 0) {
+                    searchBuffer.deleteCharAt(searchCursorPos - 1);
+                    searchCursorPos--;
+                }
+            }
+            case GLFW.GLFW_KEY_DELETE -> {
+                if (searchCursorPos < searchBuffer.length()) searchBuffer.deleteCharAt(searchCursorPos);
+            }
+            case GLFW.GLFW_KEY_LEFT -> searchCursorPos = Math.max(0, searchCursorPos - 1);
+            case GLFW.GLFW_KEY_RIGHT -> searchCursorPos = Math.min(searchBuffer.length(), searchCursorPos + 1);
+            case GLFW.GLFW_KEY_HOME -> searchCursorPos = 0;
+            case GLFW.GLFW_KEY_END -> searchCursorPos = searchBuffer.length();
+            case GLFW.GLFW_KEY_R -> {
+                if (ctrl) {
+                    searchRegex = !searchRegex;
+                    submittedSearch = null;
+                }
+            }
+            case GLFW.GLFW_KEY_V -> {
+                if (ctrl) {
+                    String clip = minecraftClient.keyboard.getClipboard();
+                    if (clip != null && !clip.isEmpty()) {
+                        clip = clip.replace("\n", " ").replace("\r", "");
+                        searchBuffer.insert(searchCursorPos, clip);
+                        searchCursorPos += clip.length();
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    private void renderSearchBar(DrawContext context, TerminalInstance terminal, int rightEdge) {
+        int barWidth = Math.min(320, rightEdge - 20);
+        int barHeight = minecraftClient.textRenderer.fontHeight + 6;
+        int barX = rightEdge - barWidth - 12;
+        int barY = TAB_HEIGHT + 12;
+        context.fill(barX, barY, barX + barWidth, barY + barHeight, lighterColor);
+        drawInnerBorder(context, barX, barY, barWidth, barHeight, borderColor);
+        String label = searchRegex ? "Regex: " : "Find: ";
+        String status = terminal.renderer.getSearchStatus();
+        int statusWidth = minecraftClient.textRenderer.getWidth(status);
+        int textY = barY + 3;
+        int textX = barX + 4;
+        context.drawText(minecraftClient.textRenderer, Text.literal(label), textX, textY, dimTextColor, false);
+        textX += minecraftClient.textRenderer.getWidth(label);
+        String query = searchBuffer.toString();
+        String visible = minecraftClient.textRenderer.trimToWidth(query, Math.max(0, barX + barWidth - 8 - statusWidth - textX));
+        context.drawText(minecraftClient.textRenderer, Text.literal(visible), textX, textY, textColor, false);
+        if (snippetCursorVisible) {
+            int cursorX = textX + minecraftClient.textRenderer.getWidth(query.substring(0, Math.min(searchCursorPos, visible.length())));
+            context.fill(cursorX, textY - 1, cursorX + 1, textY + minecraftClient.textRenderer.fontHeight, textColor);
+        }
+        context.drawText(minecraftClient.textRenderer, Text.literal(status), barX + barWidth - 4 - statusWidth, textY, dimTextColor, false);
+    }
+
     private void drawHoverableButton(DrawContext context, int x, int y, String text, boolean hovered, int textColor) {
         int w = minecraftClient.textRenderer.getWidth(text) + 10;
         int h = 10 + minecraftClient.textRenderer.fontHeight;
@@ -1334,6 +1443,11 @@ public class MultiTerminalScreen extends Screen {
         return idx;
     }
 
+    private String tabLabel(int index) {
+        long shed = terminals.get(index).renderer.getShedLines();
+        return shed > 0 ? tabNames.get(index) + " (" + shed + " dropped)" : tabNames.get(index);
+    }
+
     static class TabInfo {
         String name;
         int width;
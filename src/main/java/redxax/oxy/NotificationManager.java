@@ -29,6 +29,19 @@ public class NotificationManager {
         activeNotifications.add(notification);
     }
 
+    public static void showProgress(String key, String message, Type type) {
+        initialize();
+        for (Notification notification : activeNotifications) {
+            if (key.equals(notification.key)) {
+                notification.setMessage(message, type);
+                return;
+            }
+        }
+        Notification notification = new Notification(message, type);
+        notification.key = key;
+        activeNotifications.add(notification);
+    }
+
     public static void updateAll(float delta) {
         Iterator<Notification> iterator = activeNotifications.iterator();
         while (iterator.hasNext()) {
@@ -54,6 +67,7 @@ public class NotificationManager {
 
     private static class Notification {
         private final TextRenderer textRenderer;
+        private String key;
         private String message;
         private Type type;
         private float x;
@@ -83,6 +97,16 @@ public class NotificationManager {
             this.opacity = 1.0f;
         }
 
+        public void setMessage(String message, Type type) {
+            this.message = message;
+            this.type = type;
+            this.width = textRenderer.getWidth(message) + 2 * padding;
+            this.targetX = minecraftClient.getWindow().getScaledWidth() - width - padding;
+            this.elapsedTime = 0.0f;
+            this.fadingOut = false;
+            this.currentOpacity = maxOpacity;
+        }
+
         public void setPosition(float x, float y) {
             this.x = x;
             this.y = y;
@@ -3,22 +3,33 @@ package redxax.oxy;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
 import net.fabricmc.fabric.api.client.keybinding.v1.KeyBindingHelper;
+import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.ResourceReloadListenerKeys;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.option.KeyBinding;
 import net.minecraft.client.util.InputUtil;
+import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceType;
 import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
 import org.lwjgl.glfw.GLFW;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 
 import java.nio.file.*;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import redxax.oxy.servers.ServerInfo;
 import redxax.oxy.servers.ServerManagerScreen;
+import redxax.oxy.terminal.HighlightEngine;
+import redxax.oxy.terminal.HighlightRule;
 
 public class RemotelyClient implements ClientModInitializer {
 
@@ -30,6 +41,7 @@ public class RemotelyClient implements ClientModInitializer {
 
     private static final Path TERMINAL_LOG_DIR = Paths.get(System.getProperty("user.dir"), "remotely", "logs");
     private static final Path SNIPPETS_FILE = Paths.get(System.getProperty("user.dir"), "remotely", "snippets", "snippets.json");
+    private static final Path HIGHLIGHT_RULES_FILE = Paths.get(System.getProperty("user.dir"), "remotely", "highlight_rules.json");
     private static final Gson GSON = new Gson();
     public List<TerminalInstance> terminals = new ArrayList<>();
     public List<String> tabNames = new ArrayList<>();
@@ -41,6 +53,10 @@ public class RemotelyClient implements ClientModInitializer {
     public static RemotelyClient INSTANCE;
 
     public final List<ServerInfo> servers = new ArrayList<>();
+    public final TerminalMemoryBudget memoryBudget = new TerminalMemoryBudget();
+    public final FrameTimeGovernor frameGovernor = new FrameTimeGovernor();
+    private static final int BACKGROUND_DRAIN_INTERVAL = 10;
+    private int drainTicks = 0;
     private int activeHostIndex = 0;
 
     @Override
@@ -48,6 +64,7 @@ public class RemotelyClient implements ClientModInitializer {
         INSTANCE = this;
         System.out.println("Remotely mod initialized on the client.");
         loadSnippets();
+        loadHighlightRules();
 
         openTerminalKeyBinding = KeyBindingHelper.registerKeyBinding(new KeyBinding(
                 "Open Terminal",
@@ -64,6 +81,8 @@ public class RemotelyClient implements ClientModInitializer {
         ));
 
         ClientTickEvents.END_CLIENT_TICK.register(client -> {
+            drainTerminalOutput();
+            memoryBudget.tick(this);
             if (client != null && client.player != null) {
                 if (openTerminalKeyBinding.wasPressed()) {
                     openMultiTerminalGUI(client);
@@ -74,9 +93,63 @@ public class RemotelyClient implements ClientModInitializer {
             }
         });
 
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new SimpleSynchronousResourceReloadListener() {
+            @Override
+            public Identifier getFabricId() {
+                return Identifier.of("remotely", "glyph_widths");
+            }
+
+            @Override
+            public Collection<Identifier> getFabricDependencies() {
+                return List.of(ResourceReloadListenerKeys.FONTS);
+            }
+
+            @Override
+            public void reload(ResourceManager manager) {
+                TerminalRenderer.reloadGlyphWidths();
+            }
+        });
+
         Runtime.getRuntime().addShutdownHook(new Thread(this::shutdownAllTerminals));
     }
 
+    private void drainTerminalOutput() {
+        boolean drainBackground = ++drainTicks % BACKGROUND_DRAIN_INTERVAL == 0;
+        long backgroundBudget = frameGovernor.scaleBudget(TerminalRenderer.DRAIN_BUDGET_NANOS);
+        for (TerminalInstance terminal : terminals) {
+            drainTerminal(terminal.renderer, drainBackground, backgroundBudget);
+        }
+        for (ServerInfo server : servers) {
+            if (server.terminal != null) {
+                drainTerminal(server.terminal.renderer, drainBackground, backgroundBudget);
+            }
+        }
+    }
+
+    private void drainTerminal(TerminalRenderer renderer, boolean drainBackground, long backgroundBudget) {
+        if (renderer.isForeground()) {
+            renderer.drainPendingOutput();
+        } else if (renderer.isBacklogged()) {
+            renderer.drainPendingOutput(Math.max(backgroundBudget, TerminalRenderer.DRAIN_BUDGET_NANOS));
+        } else if (drainBackground) {
+            renderer.drainPendingOutput(backgroundBudget);
+        }
+    }
+
+    public List<Map.Entry<String, TerminalRenderer>> getTerminalRenderers() {
+        List<Map.Entry<String, TerminalRenderer>> renderers = new ArrayList<>();
+        for (int i = 0; i < terminals.size(); i++) {
+            String name = i < tabNames.size() ? tabNames.get(i) : "Terminal " + (i + 1);
+            renderers.add(Map.entry("Terminal " + name, terminals.get(i).renderer));
+        }
+        for (ServerInfo server : servers) {
+            if (server.terminal != null) {
+                renderers.add(Map.entry("Server " + server.name, server.terminal.renderer));
+            }
+        }
+        return renderers;
+    }
+
     public void openMultiTerminalGUI(MinecraftClient client) {
         if (multiTerminalScreen == null || !client.isWindowFocused()) {
             multiTerminalScreen = new MultiTerminalScreen(client, this, terminals, tabNames);
@@ -133,6 +206,7 @@ public class RemotelyClient implements ClientModInitializer {
             multiTerminalScreen.shutdownAllTerminals();
             multiTerminalScreen = null;
         }
+        TaskScheduler.shutdown();
         saveSnippets();
         try {
             if (Files.exists(TERMINAL_LOG_DIR) && Files.isDirectory(TERMINAL_LOG_DIR)) {
@@ -183,6 +257,27 @@ public class RemotelyClient implements ClientModInitializer {
         }
     }
 
+    public String loadHighlightRules() {
+        try {
+            List<HighlightRule> rules;
+            if (Files.exists(HIGHLIGHT_RULES_FILE)) {
+                String json = Files.readString(HIGHLIGHT_RULES_FILE);
+                rules = GSON.fromJson(json, new TypeToken<List<HighlightRule>>(){}.getType());
+                if (rules == null) rules = HighlightEngine.defaultRules();
+            } else {
+                rules = HighlightEngine.defaultRules();
+                Files.createDirectories(HIGHLIGHT_RULES_FILE.getParent());
+                Files.writeString(HIGHLIGHT_RULES_FILE, new GsonBuilder().setPrettyPrinting().create().toJson(rules));
+            }
+            HighlightEngine engine = new HighlightEngine(rules);
+            TerminalRenderer.setHighlightEngine(engine);
+            return "Loaded " + rules.size() + " highlight rules (" + engine.getPatternCount() + " keywords) from " + HIGHLIGHT_RULES_FILE + "\n";
+        } catch (Exception e) {
+            System.out.println("Failed to load highlight rules: " + e.getMessage());
+            return "Failed to load highlight rules: " + e.getMessage() + "\n";
+        }
+    }
+
     public void loadSnippets() {
         if (Files.exists(SNIPPETS_FILE)) {
             try {
@@ -21,8 +21,9 @@ public class SSHManager {
     private boolean awaitingPassword = false;
     private String sshPassword = "";
     private TerminalInstance terminalInstance;
-    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
-    private final ExecutorService sftpExecutor = Executors.newSingleThreadExecutor();
+    private final TaskScheduler.Group sshTasks = TaskScheduler.group("ssh");
+    private final TaskScheduler.Group sftpTasks = TaskScheduler.serialGroup("sftp");
+    private final TaskScheduler.Group sshInput = TaskScheduler.serialGroup("ssh-input");
     private final CountDownLatch sessionInitializedLatch = new CountDownLatch(1);
     private ChannelSftp sftpChannel;
     private boolean sftpConnected = false;
@@ -30,6 +31,8 @@ public class SSHManager {
     private List<String> remoteCommandsCache = new ArrayList<>();
     private long remoteCommandsLastFetched = 0;
     private static final long REMOTE_COMMANDS_CACHE_DURATION = 60000;
+    private int ptyCols = 80;
+    private int ptyRows = 24;
 
     public SSHManager(ServerInfo serverInfo) {
         this.serverInfo = serverInfo;
@@ -87,7 +90,7 @@ public class SSHManager {
 
     public void prepareRemoteDirectory(String path) {
         if (!sftpConnected) return;
-        sftpExecutor.submit(() -> {
+        sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 String[] parts = path.replace("\\", "/").split("/");
                 StringBuilder current = new StringBuilder();
@@ -106,7 +109,7 @@ public class SSHManager {
 
     public void uploadMrPackBinary() {
         if (!sftpConnected) return;
-        sftpExecutor.submit(() -> {
+        sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 InputStream in = new URL("https://github.com/nothub/mrpack-install/releases/download/v0.16.10/mrpack-install-linux").openStream();
                 sftpChannel.put(in, "/tmp/mrpack-install-linux");
@@ -123,7 +126,7 @@ public class SSHManager {
             }
             return;
         }
-        executorService.submit(() -> {
+        sshTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 ChannelExec channelExec = (ChannelExec) sshSession.openChannel("exec");
                 StringBuilder cmd = new StringBuilder();
@@ -159,10 +162,11 @@ public class SSHManager {
             }
             return;
         }
-        executorService.submit(() -> {
+        sshTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 ChannelShell ch = (ChannelShell) sshSession.openChannel("shell");
                 ch.setPty(true);
+                ch.setPtySize(ptyCols, ptyRows, 0, 0);
                 ch.connect();
                 sshChannel = ch;
                 sshReader = new BufferedReader(new InputStreamReader(sshChannel.getInputStream(), StandardCharsets.UTF_8));
@@ -186,7 +190,7 @@ public class SSHManager {
     }
 
     private void readSSHOutput() {
-        executorService.submit(() -> {
+        sshTasks.submit(TaskScheduler.Lane.STREAM, () -> {
             try {
                 isSSH = true;
                 String line;
@@ -207,7 +211,7 @@ public class SSHManager {
     }
 
     public void startSSHConnection(String command) {
-        executorService.submit(() -> {
+        sshTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 if (terminalInstance != null) {
                     terminalInstance.appendOutput("Connecting...\n");
@@ -265,17 +269,18 @@ public class SSHManager {
     }
 
     public void connectSSHWithPassword(String password) {
-        executorService.submit(() -> {
+        sshTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 sshSession.setPassword(password);
                 sshSession.connect(10000);
                 sshChannel = (ChannelShell) sshSession.openChannel("shell");
                 sshChannel.setPty(true);
+                sshChannel.setPtySize(ptyCols, ptyRows, 0, 0);
                 sshChannel.connect();
                 sshReader = new BufferedReader(new InputStreamReader(sshChannel.getInputStream(), StandardCharsets.UTF_8));
                 sshWriter = new OutputStreamWriter(sshChannel.getOutputStream(), StandardCharsets.UTF_8);
                 isSSH = true;
-                executorService.submit(this::readSSHChannel);
+                sshTasks.submit(TaskScheduler.Lane.STREAM, this::readSSHChannel);
                 if (terminalInstance != null) {
                     terminalInstance.appendOutput("Connected.\n");
                 }
@@ -293,10 +298,11 @@ public class SSHManager {
 
     private void readSSHChannel() {
         try {
-            String line;
-            while (isSSH && (line = sshReader.readLine()) != null) {
-                if (terminalInstance != null) {
-                    terminalInstance.appendOutput(line + "\n");
+            char[] buffer = new char[8192];
+            int read;
+            while (isSSH && (read = sshReader.read(buffer)) != -1) {
+                if (terminalInstance != null && read > 0) {
+                    terminalInstance.appendOutput(new String(buffer, 0, read));
                 }
             }
             if (isSSH) {
@@ -326,6 +332,9 @@ public class SSHManager {
             isSSH = false;
             awaitingPassword = false;
             sftpConnected = false;
+            sftpTasks.cancelAndJoin();
+            sshInput.cancelAndJoin();
+            sshTasks.cancelAndJoin();
         } catch (Exception ignored) {}
     }
 
@@ -358,10 +367,32 @@ public class SSHManager {
         return sshWriter;
     }
 
+    public void sendRaw(String data) {
+        Writer writer = sshWriter;
+        if (writer == null) {
+            return;
+        }
+        sshInput.submit(TaskScheduler.Lane.NETWORK, () -> {
+            try {
+                writer.write(data);
+                writer.flush();
+            } catch (IOException ignored) {
+            }
+        });
+    }
+
+    public void resizePty(int cols, int rows) {
+        ptyCols = cols;
+        ptyRows = rows;
+        if (sshChannel != null && sshChannel.isConnected()) {
+            sshChannel.setPtySize(cols, rows, 0, 0);
+        }
+    }
+
     public boolean isRemoteDirectory(String path) {
         if (!sftpConnected) return false;
         try {
-            return sftpExecutor.submit(() -> {
+            return sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
                 SftpATTRS attrs = sftpChannel.stat(path);
                 return attrs.isDir();
             }).get();
@@ -372,7 +403,7 @@ public class SSHManager {
 
     public List<String> listRemoteDirectory(String dir) throws SftpException, ExecutionException, InterruptedException {
         if (!sftpConnected) return Collections.emptyList();
-        return sftpExecutor.submit(() -> {
+        return sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             Vector<ChannelSftp.LsEntry> list = sftpChannel.ls(dir);
             List<String> result = new ArrayList<>();
             for (ChannelSftp.LsEntry entry : list) {
@@ -414,7 +445,7 @@ public class SSHManager {
 
     public void uploadRemotePath(String string, String remotePath) {
         if (!sftpConnected) return;
-        sftpExecutor.submit(() -> {
+        sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 sftpChannel.put(string, remotePath);
             } catch (Exception e) {
@@ -427,7 +458,7 @@ public class SSHManager {
 
     public void downloadRemotePath(String remotePath, Path resolve) {
         if (!sftpConnected) return;
-        sftpExecutor.submit(() -> {
+        sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 sftpChannel.get(remotePath, resolve.toString());
             } catch (Exception e) {
@@ -440,7 +471,7 @@ public class SSHManager {
 
     public void writeRemoteFile(String remotePath, String content) {
         if (!sftpConnected) return;
-        sftpExecutor.submit(() -> {
+        sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
             try (OutputStream out = sftpChannel.put(remotePath)) {
                 out.write(content.getBytes(StandardCharsets.UTF_8));
             } catch (Exception e) {
@@ -454,7 +485,7 @@ public class SSHManager {
     public String readRemoteFile(String remotePath) {
         if (!sftpConnected) return "";
         try {
-            return sftpExecutor.submit(() -> {
+            return sftpTasks.submit(TaskScheduler.Lane.NETWORK, () -> {
                 StringBuilder sb = new StringBuilder();
                 try (InputStream in = sftpChannel.get(remotePath);
                      BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
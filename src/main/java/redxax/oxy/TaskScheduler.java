@@ -0,0 +1,400 @@
+package redxax.oxy;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskScheduler {
+    private static final long CANCEL_TIMEOUT_MS = 500;
+    private static final AtomicInteger CPU_THREADS = new AtomicInteger();
+    private static final LaneState[] LANES = new LaneState[Lane.values().length];
+    private static volatile boolean shutdown = false;
+    private static long lastSampleNanos = System.nanoTime();
+    private static long lastCarrierCpuNanos = 0;
+
+    public enum Lane {
+        IO("io", 4),
+        CPU("cpu", Math.max(1, Runtime.getRuntime().availableProcessors() / 2)),
+        NETWORK("network", 6),
+        STREAM("stream", 0);
+
+        private final String label;
+        private final int defaultLimit;
+
+        Lane(String label, int defaultLimit) {
+            this.label = label;
+            this.defaultLimit = defaultLimit;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public int defaultLimit() {
+            return defaultLimit;
+        }
+    }
+
+    static {
+        for (Lane lane : Lane.values()) {
+            ThreadFactory factory = lane == Lane.CPU ? runnable -> {
+                Thread thread = new Thread(runnable, "Remotely-CPU-" + CPU_THREADS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            } : Thread.ofVirtual().name("Remotely-" + lane.label() + "-", 0).factory();
+            LANES[lane.ordinal()] = new LaneState(lane, factory);
+        }
+    }
+
+    public static Future<?> submit(Lane lane, Runnable task) {
+        return submit(lane, Executors.callable(task));
+    }
+
+    public static <T> Future<T> submit(Lane lane, Callable<T> task) {
+        Task<T> job = new Task<>(task, null);
+        LANES[lane.ordinal()].enqueue(job);
+        return job;
+    }
+
+    public static Executor executor(Lane lane) {
+        return task -> submit(lane, task);
+    }
+
+    public static Group group(String name) {
+        return new Group(name, false);
+    }
+
+    public static Group serialGroup(String name) {
+        return new Group(name, true);
+    }
+
+    public static void setLimit(Lane lane, int limit) {
+        LANES[lane.ordinal()].setLimit(limit);
+    }
+
+    public static int getLimit(Lane lane) {
+        return LANES[lane.ordinal()].limit;
+    }
+
+    public static void setPriority(Lane lane, int priority) {
+        LANES[lane.ordinal()].priority = Math.max(Thread.MIN_PRIORITY, Math.min(Thread.MAX_PRIORITY, priority));
+    }
+
+    public static int getPriority(Lane lane) {
+        return LANES[lane.ordinal()].priority;
+    }
+
+    public static int getQueueDepth(Lane lane) {
+        LaneState state = LANES[lane.ordinal()];
+        synchronized (state) {
+            return state.queue.size();
+        }
+    }
+
+    public static class Group {
+        private final String name;
+        private final boolean serial;
+        private final Set<Task<?>> tasks = ConcurrentHashMap.newKeySet();
+        private final ArrayDeque<Task<?>> serialQueue = new ArrayDeque<>();
+        private Lane drainingLane = null;
+
+        private Group(String name, boolean serial) {
+            this.name = name;
+            this.serial = serial;
+        }
+
+        public Future<?> submit(Lane lane, Runnable task) {
+            return submit(lane, Executors.callable(task));
+        }
+
+        public <T> Future<T> submit(Lane lane, Callable<T> task) {
+            Task<T> job = new Task<>(task, tasks);
+            tasks.add(job);
+            if (!serial) {
+                LANES[lane.ordinal()].enqueue(job);
+                return job;
+            }
+            synchronized (serialQueue) {
+                serialQueue.add(job);
+                if (drainingLane != null) {
+                    return job;
+                }
+                drainingLane = lane;
+            }
+            LANES[lane.ordinal()].enqueue(new Task<>(Executors.callable(this::drain), null));
+            return job;
+        }
+
+        private void drain() {
+            while (true) {
+                Task<?> next;
+                synchronized (serialQueue) {
+                    next = serialQueue.poll();
+                    if (next == null) {
+                        drainingLane = null;
+                        return;
+                    }
+                }
+                next.run();
+                Thread.interrupted();
+            }
+        }
+
+        public int getPendingTasks() {
+            return tasks.size();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void cancel() {
+            synchronized (serialQueue) {
+                serialQueue.clear();
+            }
+            for (Task<?> task : tasks) {
+                if (!task.isCurrent()) {
+                    task.cancel(true);
+                }
+            }
+        }
+
+        public void cancelAndJoin() {
+            List<Task<?>> joining = new ArrayList<>(tasks);
+            cancel();
+            long deadline = System.currentTimeMillis() + CANCEL_TIMEOUT_MS;
+            for (Task<?> task : joining) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                if (task.isCurrent()) {
+                    continue;
+                }
+                try {
+                    task.awaitFinished(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            tasks.removeIf(task -> !task.isCurrent());
+        }
+    }
+
+    private static class Task<T> extends FutureTask<T> {
+        private final Set<Task<?>> owner;
+        private final long queuedAt = System.nanoTime();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean started = false;
+        private volatile Thread runner;
+
+        Task(Callable<T> callable, Set<Task<?>> owner) {
+            super(callable);
+            this.owner = owner;
+        }
+
+        @Override
+        public void run() {
+            started = true;
+            runner = Thread.currentThread();
+            try {
+                super.run();
+            } finally {
+                runner = null;
+                finished.countDown();
+            }
+        }
+
+        void awaitFinished(long timeoutMs) throws InterruptedException {
+            if (started) {
+                finished.await(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        boolean isCurrent() {
+            return runner == Thread.currentThread();
+        }
+
+        boolean failed() {
+            try {
+                get(0, TimeUnit.NANOSECONDS);
+                return false;
+            } catch (Exception e) {
+                return !isCancelled();
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (owner != null) {
+                owner.remove(this);
+            }
+        }
+    }
+
+    private static class LaneState {
+        private final Lane lane;
+        private final ThreadFactory factory;
+        private final ArrayDeque<Task<?>> queue = new ArrayDeque<>();
+        private final Set<Task<?>> running = ConcurrentHashMap.newKeySet();
+        private volatile int limit;
+        private volatile int priority = Thread.NORM_PRIORITY;
+        private int workers = 0;
+        private int peakQueue = 0;
+        private long completed = 0;
+        private long failed = 0;
+        private long cancelled = 0;
+        private long totalWaitNanos = 0;
+        private long maxWaitNanos = 0;
+        private long totalRunNanos = 0;
+
+        LaneState(Lane lane, ThreadFactory factory) {
+            this.lane = lane;
+            this.factory = factory;
+            this.limit = lane.defaultLimit();
+        }
+
+        void enqueue(Task<?> task) {
+            synchronized (this) {
+                if (shutdown) {
+                    task.cancel(false);
+                    cancelled++;
+                    return;
+                }
+                queue.add(task);
+                peakQueue = Math.max(peakQueue, queue.size());
+                if (limit > 0 && workers >= limit) {
+                    return;
+                }
+                workers++;
+            }
+            factory.newThread(this::work).start();
+        }
+
+        void setLimit(int newLimit) {
+            int spawn;
+            synchronized (this) {
+                limit = Math.max(0, newLimit);
+                spawn = limit == 0 ? queue.size() : Math.min(queue.size(), Math.max(0, limit - workers));
+                workers += spawn;
+            }
+            for (int i = 0; i < spawn; i++) {
+                factory.newThread(this::work).start();
+            }
+        }
+
+        private void work() {
+            while (true) {
+                Task<?> task;
+                synchronized (this) {
+                    task = (limit > 0 && workers > limit) ? null : queue.poll();
+                    if (task == null) {
+                        workers--;
+                        return;
+                    }
+                }
+                Thread thread = Thread.currentThread();
+                if (!thread.isVirtual() && thread.getPriority() != priority) {
+                    thread.setPriority(priority);
+                }
+                long started = System.nanoTime();
+                running.add(task);
+                task.run();
+                running.remove(task);
+                Thread.interrupted();
+                long finished = System.nanoTime();
+                synchronized (this) {
+                    long wait = started - task.queuedAt;
+                    totalWaitNanos += wait;
+                    maxWaitNanos = Math.max(maxWaitNanos, wait);
+                    totalRunNanos += finished - started;
+                    if (task.isCancelled()) {
+                        cancelled++;
+                    } else if (task.failed()) {
+                        failed++;
+                    } else {
+                        completed++;
+                    }
+                }
+            }
+        }
+
+        synchronized void cancelAll() {
+            for (Task<?> task : queue) {
+                task.cancel(false);
+                cancelled++;
+            }
+            queue.clear();
+            for (Task<?> task : running) {
+                task.cancel(true);
+            }
+        }
+
+        synchronized String describe() {
+            long finished = completed + failed + cancelled;
+            return String.format("  %-8s %d/%s running, %d queued (peak %d), %d done, %d failed, %d cancelled, wait avg %.1fms max %.1fms, run avg %.1fms\n",
+                    lane.label(), running.size(), limit == 0 ? "unbounded" : String.valueOf(limit), queue.size(), peakQueue,
+                    completed, failed, cancelled, finished == 0 ? 0 : totalWaitNanos / 1e6 / finished, maxWaitNanos / 1e6,
+                    finished == 0 ? 0 : totalRunNanos / 1e6 / finished);
+        }
+    }
+
+    public static synchronized String describe() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        int carriers = 0;
+        long carrierCpuNanos = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getClass().getName().equals("jdk.internal.misc.CarrierThread")) {
+                carriers++;
+                long cpu = threads.isThreadCpuTimeSupported() ? threads.getThreadCpuTime(thread.threadId()) : -1;
+                carrierCpuNanos += Math.max(0, cpu);
+            }
+        }
+        long now = System.nanoTime();
+        long wall = Math.max(1, now - lastSampleNanos);
+        double utilization = carriers == 0 ? 0 : Math.min(1.0, Math.max(0, carrierCpuNanos - lastCarrierCpuNanos) / (double) (wall * carriers));
+        lastSampleNanos = now;
+        lastCarrierCpuNanos = carrierCpuNanos;
+        StringBuilder out = new StringBuilder(String.format("Platform threads: %d live (%d daemon, peak %d)\nCarrier threads: %d, %.1f%% utilized since last sample\nLanes:\n",
+                threads.getThreadCount(), threads.getDaemonThreadCount(), threads.getPeakThreadCount(), carriers, utilization * 100));
+        for (LaneState lane : LANES) {
+            out.append(lane.describe());
+        }
+        return out.toString();
+    }
+
+    public static void shutdown() {
+        shutdown = true;
+        for (LaneState lane : LANES) {
+            lane.cancelAll();
+        }
+        long deadline = System.currentTimeMillis() + CANCEL_TIMEOUT_MS;
+        for (LaneState lane : LANES) {
+            while (!lane.running.isEmpty() && System.currentTimeMillis() < deadline) {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            if (!lane.running.isEmpty()) {
+                System.err.println("Remotely " + lane.lane.label() + " tasks still running at shutdown: " + lane.running.size());
+            }
+        }
+    }
+}
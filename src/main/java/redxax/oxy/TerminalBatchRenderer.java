@@ -0,0 +1,97 @@
+package redxax.oxy;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.font.TextRenderer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BufferRenderer;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.LightmapTextureManager;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import net.minecraft.text.OrderedText;
+import org.joml.Matrix4f;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TerminalBatchRenderer {
+    private final TextRenderer textRenderer;
+    private int[] quads = new int[5 * 256];
+    private int quadCount = 0;
+    private final List<OrderedText> texts = new ArrayList<>();
+    private int[] textPositions = new int[2 * 256];
+    private long batches = 0;
+    private long batchedQuads = 0;
+    private long batchedTexts = 0;
+
+    public TerminalBatchRenderer(TextRenderer textRenderer) {
+        this.textRenderer = textRenderer;
+    }
+
+    public void fill(int x1, int y1, int x2, int y2, int color) {
+        if (x1 >= x2 || y1 >= y2) {
+            return;
+        }
+        if ((quadCount + 1) * 5 > quads.length) {
+            quads = Arrays.copyOf(quads, quads.length * 2);
+        }
+        int offset = quadCount * 5;
+        quads[offset] = x1;
+        quads[offset + 1] = y1;
+        quads[offset + 2] = x2;
+        quads[offset + 3] = y2;
+        quads[offset + 4] = color;
+        quadCount++;
+    }
+
+    public void text(OrderedText text, int x, int y) {
+        int index = texts.size();
+        if ((index + 1) * 2 > textPositions.length) {
+            textPositions = Arrays.copyOf(textPositions, textPositions.length * 2);
+        }
+        textPositions[index * 2] = x;
+        textPositions[index * 2 + 1] = y;
+        texts.add(text);
+    }
+
+    public void flush(DrawContext context, int textColor) {
+        if (quadCount == 0 && texts.isEmpty()) {
+            return;
+        }
+        context.draw();
+        Matrix4f matrix = context.getMatrices().peek().getPositionMatrix();
+        if (quadCount > 0) {
+            RenderSystem.enableBlend();
+            RenderSystem.defaultBlendFunc();
+            RenderSystem.setShader(GameRenderer::getPositionColorProgram);
+            BufferBuilder buffer = Tessellator.getInstance().begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_COLOR);
+            for (int i = 0; i < quadCount; i++) {
+                int offset = i * 5;
+                int color = quads[offset + 4];
+                buffer.vertex(matrix, quads[offset], quads[offset + 1], 0).color(color);
+                buffer.vertex(matrix, quads[offset], quads[offset + 3], 0).color(color);
+                buffer.vertex(matrix, quads[offset + 2], quads[offset + 3], 0).color(color);
+                buffer.vertex(matrix, quads[offset + 2], quads[offset + 1], 0).color(color);
+            }
+            BufferRenderer.drawWithGlobalProgram(buffer.end());
+        }
+        for (int i = 0; i < texts.size(); i++) {
+            textRenderer.draw(texts.get(i), textPositions[i * 2], textPositions[i * 2 + 1], textColor, false, matrix,
+                    context.getVertexConsumers(), TextRenderer.TextLayerType.NORMAL, 0, LightmapTextureManager.MAX_LIGHT_COORDINATE);
+        }
+        context.draw();
+        batches++;
+        batchedQuads += quadCount;
+        batchedTexts += texts.size();
+        quadCount = 0;
+        texts.clear();
+    }
+
+    public String describe() {
+        return batches == 0 ? "no batches yet" : String.format("%d batches, %.1f quads and %.1f text runs per batch",
+                batches, (double) batchedQuads / batches, (double) batchedTexts / batches);
+    }
+}
@@ -0,0 +1,92 @@
+package redxax.oxy;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gl.Framebuffer;
+import net.minecraft.client.gl.SimpleFramebuffer;
+import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.render.BufferBuilder;
+import net.minecraft.client.render.BufferRenderer;
+import net.minecraft.client.render.GameRenderer;
+import net.minecraft.client.render.Tessellator;
+import net.minecraft.client.render.VertexFormat;
+import net.minecraft.client.render.VertexFormats;
+import org.joml.Matrix4f;
+
+public class TerminalFramebuffer {
+    private final MinecraftClient minecraftClient;
+    private Framebuffer framebuffer;
+    private long redrawnRows = 0;
+    private long blits = 0;
+
+    public TerminalFramebuffer(MinecraftClient minecraftClient) {
+        this.minecraftClient = minecraftClient;
+    }
+
+    public boolean ensureSize() {
+        int width = minecraftClient.getWindow().getFramebufferWidth();
+        int height = minecraftClient.getWindow().getFramebufferHeight();
+        if (framebuffer != null && framebuffer.textureWidth == width && framebuffer.textureHeight == height) {
+            return false;
+        }
+        if (framebuffer == null) {
+            framebuffer = new SimpleFramebuffer(width, height, false, MinecraftClient.IS_SYSTEM_MAC);
+            framebuffer.setClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+        } else {
+            framebuffer.resize(width, height, MinecraftClient.IS_SYSTEM_MAC);
+        }
+        return true;
+    }
+
+    public void beginWrite(DrawContext context) {
+        context.draw();
+        framebuffer.beginWrite(true);
+    }
+
+    public void endWrite(DrawContext context, int rows) {
+        context.draw();
+        minecraftClient.getFramebuffer().beginWrite(true);
+        redrawnRows += rows;
+    }
+
+    public void blit(DrawContext context, int x1, int y1, int x2, int y2) {
+        double guiScale = minecraftClient.getWindow().getScaleFactor();
+        float u1 = (float) (x1 * guiScale / framebuffer.textureWidth);
+        float u2 = (float) (x2 * guiScale / framebuffer.textureWidth);
+        float v1 = 1.0f - (float) (y1 * guiScale / framebuffer.textureHeight);
+        float v2 = 1.0f - (float) (y2 * guiScale / framebuffer.textureHeight);
+        Matrix4f matrix = context.getMatrices().peek().getPositionMatrix();
+        RenderSystem.setShaderTexture(0, framebuffer.getColorAttachment());
+        RenderSystem.setShader(GameRenderer::getPositionTexProgram);
+        RenderSystem.disableBlend();
+        BufferBuilder buffer = Tessellator.getInstance().begin(VertexFormat.DrawMode.QUADS, VertexFormats.POSITION_TEXTURE);
+        buffer.vertex(matrix, x1, y1, 0).texture(u1, v1);
+        buffer.vertex(matrix, x1, y2, 0).texture(u1, v2);
+        buffer.vertex(matrix, x2, y2, 0).texture(u2, v2);
+        buffer.vertex(matrix, x2, y1, 0).texture(u2, v1);
+        BufferRenderer.drawWithGlobalProgram(buffer.end());
+        RenderSystem.enableBlend();
+        RenderSystem.defaultBlendFunc();
+        blits++;
+    }
+
+    public boolean isAllocated() {
+        return framebuffer != null;
+    }
+
+    public long getRetainedBytes() {
+        return framebuffer == null ? 0 : (long) framebuffer.textureWidth * framebuffer.textureHeight * 4;
+    }
+
+    public String describe() {
+        return String.format("%s, %d rows redrawn over %d frames", framebuffer == null ? "not allocated"
+                : framebuffer.textureWidth + "x" + framebuffer.textureHeight, redrawnRows, blits);
+    }
+
+    public void release() {
+        if (framebuffer != null) {
+            framebuffer.delete();
+            framebuffer = null;
+        }
+    }
+}
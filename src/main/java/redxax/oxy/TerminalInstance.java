@@ -66,6 +66,7 @@ public class TerminalInstance {
 
     public void shutdown() {
         inputHandler.shutdown();
+        renderer.close();
     }
 
     public void saveTerminalOutput(Path path) {
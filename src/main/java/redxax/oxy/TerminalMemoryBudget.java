@@ -0,0 +1,99 @@
+package redxax.oxy;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TerminalMemoryBudget {
+    public static final long DEFAULT_BUDGET_BYTES = 128L * 1024 * 1024;
+    private static final long COLD_AFTER_MS = 30_000;
+    private static final int CHECK_INTERVAL_TICKS = 100;
+    private final AtomicBoolean compressing = new AtomicBoolean(false);
+    private final AtomicLong savedBytes = new AtomicLong();
+    private volatile long budgetBytes = DEFAULT_BUDGET_BYTES;
+    private int ticksSinceCheck = 0;
+
+    public void tick(RemotelyClient client) {
+        if (++ticksSinceCheck < CHECK_INTERVAL_TICKS) {
+            return;
+        }
+        ticksSinceCheck = 0;
+        List<TerminalRenderer> renderers = client.getTerminalRenderers().stream().map(Map.Entry::getValue).toList();
+        long usage = 0;
+        for (TerminalRenderer renderer : renderers) {
+            usage += renderer.getMemoryUsage();
+        }
+        if (usage <= budgetBytes || compressing.get()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<TerminalRenderer> cold = new ArrayList<>();
+        for (TerminalRenderer renderer : renderers) {
+            if (now - renderer.getLastActiveTime() > COLD_AFTER_MS) {
+                renderer.dropCaches();
+                cold.add(renderer);
+            }
+        }
+        if (cold.isEmpty()) {
+            return;
+        }
+        cold.sort(Comparator.comparingLong(TerminalRenderer::getLastActiveTime));
+        long excess = usage - budgetBytes;
+        compressing.set(true);
+        TaskScheduler.submit(TaskScheduler.Lane.CPU, () -> {
+            try {
+                long remaining = excess;
+                for (TerminalRenderer renderer : cold) {
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    long saved = renderer.getScrollback().compressCold();
+                    savedBytes.addAndGet(saved);
+                    remaining -= saved;
+                }
+            } catch (Exception e) {
+                System.err.println("Scrollback compression failed: " + e.getMessage());
+            } finally {
+                compressing.set(false);
+            }
+        });
+    }
+
+    public long getBudgetBytes() {
+        return budgetBytes;
+    }
+
+    public void setBudgetBytes(long budgetBytes) {
+        this.budgetBytes = Math.max(1, budgetBytes);
+    }
+
+    public String describe(List<Map.Entry<String, TerminalRenderer>> tabs) {
+        long now = System.currentTimeMillis();
+        long total = 0;
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, TerminalRenderer> tab : tabs) {
+            TerminalRenderer renderer = tab.getValue();
+            long usage = renderer.getMemoryUsage();
+            total += usage;
+            boolean isCold = now - renderer.getLastActiveTime() > COLD_AFTER_MS;
+            sb.append("  ").append(tab.getKey()).append(": ").append(formatBytes(usage))
+                    .append(" (").append(formatBytes(renderer.getScrollback().retainedBytes())).append(" uncompressed")
+                    .append(isCold ? ", cold" : "").append(")\n");
+        }
+        return "Terminal memory: " + formatBytes(total) + " of " + formatBytes(budgetBytes) + " budget, "
+                + formatBytes(savedBytes.get()) + " reclaimed by compression\n" + sb;
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
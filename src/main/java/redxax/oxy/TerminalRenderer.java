@@ -2,44 +2,132 @@ package redxax.oxy;
 
 import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.DrawContext;
+import net.minecraft.client.gui.screen.ConfirmLinkScreen;
+import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.client.util.InputUtil;
 import net.minecraft.text.*;
 import org.lwjgl.glfw.GLFW;
+import redxax.oxy.explorer.FileEditorScreen;
+import redxax.oxy.explorer.FileExplorerScreen;
+import redxax.oxy.servers.ServerInfo;
+import redxax.oxy.terminal.CellStyle;
+import redxax.oxy.terminal.FloodGuard;
+import redxax.oxy.terminal.GlyphWidthTable;
+import redxax.oxy.terminal.HighlightEngine;
+import redxax.oxy.terminal.LineAttributes;
+import redxax.oxy.terminal.LineClassifier;
+import redxax.oxy.terminal.LinkDetector;
+import redxax.oxy.terminal.LruCache;
+import redxax.oxy.terminal.MappedScrollbackStore;
+import redxax.oxy.terminal.ScreenGrid;
+import redxax.oxy.terminal.ScrollbackBuffer;
+import redxax.oxy.terminal.ScrollbackExporter;
+import redxax.oxy.terminal.ScrollbackMode;
+import redxax.oxy.terminal.ScrollbackSearch;
+import redxax.oxy.terminal.ScrollbackStore;
+import redxax.oxy.terminal.StackTraceFolder;
+import redxax.oxy.terminal.TerminalEmulator;
+import redxax.oxy.terminal.VtHandler;
+import redxax.oxy.terminal.VtParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.regex.Pattern;
 
 public class TerminalRenderer {
     public static TerminalRenderer instance;
     private final MinecraftClient minecraftClient;
     private final TerminalInstance terminalInstance;
-    private final StringBuilder terminalOutput = new StringBuilder();
-    private final List<LineText> wrappedLinesCache = new ArrayList<>();
+    private final Object outputLock = new Object();
+    private final ConcurrentLinkedQueue<String> pendingOutput = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean outputDirty = new AtomicBoolean(false);
+    private static final int MAX_DRAIN_PER_FRAME = 20_000;
+    public static final long DRAIN_BUDGET_NANOS = 4_000_000L;
+    private static final long MAX_PENDING_CHARS = 4L * 1024 * 1024;
+    private static final long BACKLOG_CHARS = MAX_PENDING_CHARS / 4;
+    private static final long BACKPRESSURE_WAIT_NANOS = 50_000_000L;
+    private final AtomicLong pendingChars = new AtomicLong();
+    private ScrollbackStore scrollback = new ScrollbackBuffer();
+    private final TerminalEmulator emulator = new TerminalEmulator(new ScrollbackSink(), this::sendTerminalResponse);
+    private final SegmentCollector segmentCollector = new SegmentCollector();
+    private static volatile GlyphWidthTable glyphWidths = createGlyphWidths();
+    private GlyphWidthTable appliedGlyphWidths = glyphWidths;
+    private final Map<Long, Style> styleCache = new HashMap<>();
+    private GridRow[] gridRows = new GridRow[0];
+    private int cellWidth = 0;
+    private final LruCache<Long, WrappedLine> wrapCache = new LruCache<>(4096);
+    private final LruCache<LineKey, List<LineText>> lineTextCache = new LruCache<>(2048);
+    private final LruCache<String, List<LinkDetector.Link>> linkCache = new LruCache<>(512);
+    private static final int LINK_UNDERLINE_COLOR = 0xFF5599FF;
+    private boolean followingOutput = true;
+    private long anchorLine = 0;
+    private int anchorRow = 0;
+    private int wrapWidth = 1;
+    private ViewKey visibleRowsKey;
+    private List<VisibleRow> visibleRows = Collections.emptyList();
+    private int visibleLineCount = 1;
+    private final ScrollbackSearch search = new ScrollbackSearch(TaskScheduler.executor(TaskScheduler.Lane.CPU));
+    private int searchCursor = -1;
+    private long searchHighlightLine = -1;
+    private volatile long lastActiveTime = System.currentTimeMillis();
+    private final LineClassifier lineClassifier = new LineClassifier();
+    private final LineAttributes lineAttributes = new LineAttributes();
+    private int filterMinLevel = LineClassifier.NONE;
+    private int filterLogger = -1;
+    private int filterVersion = 0;
+    private final FloodGuard floodGuard;
+    private static final String REPEAT_SUFFIX = "\u001B[0;38;2;136;136;136m \u00D7";
+    private final StackTraceFolder traceFolder = new StackTraceFolder();
+    private final Set<Long> expandedTraces = new HashSet<>();
+    private static final String TRACE_COLLAPSED_PREFIX = "\u001B[0;38;2;255;85;85m\u25B8 \u001B[0m";
+    private static final String TRACE_EXPANDED_PREFIX = "\u001B[0;38;2;255;85;85m\u25BE \u001B[0m";
+    private static final String TRACE_FRAME_STYLE = "\u001B[0;38;2;136;136;136m  ";
+    private static final long CACHE_ENTRY_BYTES = 256;
+    public static final Path EXPORT_DIR = Paths.get(System.getProperty("user.dir"), "remotely", "exports");
+    private static final long EXPORT_PROGRESS_INTERVAL_MS = 250;
+    private static final DateTimeFormatter GUTTER_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+    private static final int GUTTER_COLOR = 0x6E6E6E;
+    private boolean showTimestamps = false;
+    private int gutterWidth = 0;
     private float scale = 1.0f;
-    private float previousScale = 1.0f;
     private int terminalWidth;
-    private int previousTerminalWidth = 0;
     private static final float MIN_SCALE = 0.1f;
     private static final float MAX_SCALE = 2.0f;
-    private int scrollOffset = 0;
     private long lastBlinkTime = 0;
     private boolean cursorVisible = true;
     private long lastInputTime = 0;
     private static final int SCROLL_STEP = 1;
-    private final Pattern ANSI_PATTERN = Pattern.compile("\u001B\\[[0-?]*[ -/]*[@-~]");
     private static final Pattern TMUX_STATUS_PATTERN = Pattern.compile("^\\[\\d+].*");
-    private final Pattern BRACKET_KEYWORD_PATTERN = Pattern.compile("\\[(.*?)\\b(WARNING|WARN|ERROR|INFO)\\b(.*?)]");
-    private final Map<String, TextColor> keywordColors = new HashMap<>();
+    private static volatile HighlightEngine highlightEngine = new HighlightEngine(HighlightEngine.defaultRules());
+    private HighlightEngine appliedHighlightEngine = highlightEngine;
     private final List<LineInfo> lineInfos = new ArrayList<>();
     private boolean isSelecting = false;
-    private int selectionStartLine = -1;
+    private long selectionStartLine = -1;
     private int selectionStartChar = -1;
-    private int selectionEndLine = -1;
+    private long selectionEndLine = -1;
     private int selectionEndChar = -1;
+    private int selectionVersion = 0;
+    private final TerminalFramebuffer framebuffer;
+    private final TerminalBatchRenderer batchRenderer;
+    private RowPaint[] paintedRows = new RowPaint[0];
+    private FrameLayout paintedLayout;
     private int terminalX;
     private int terminalY;
     private int terminalHeight;
     private String tmuxStatusLine = "";
+    private long tmuxScannedUpTo = 0;
+    private static final int TMUX_SCAN_LIMIT = 256;
+    private static final long FOREGROUND_WINDOW_MS = 1000;
     private static final int BORDER_COLOR = 0xFF212121;
     private static final int TERMINAL_BACKGROUND_COLOR = 0xFF0a0a0a;
     private static final int BORDER_THICKNESS = 2;
@@ -49,28 +137,35 @@ public class TerminalRenderer {
     private static final int CURSOR_COLOR = 0xFFFFFFFF;
     private static final int SELECTION_COLOR = 0x80FFFFFF;
     private static final int STATUS_BAR_COLOR = 0xFF333333;
+    private static final int SEARCH_HIGHLIGHT_COLOR = 0x60FFD700;
 
     public TerminalRenderer(MinecraftClient client, TerminalInstance terminalInstance) {
         this.minecraftClient = client;
         this.terminalInstance = terminalInstance;
+        this.framebuffer = new TerminalFramebuffer(client);
+        this.batchRenderer = new TerminalBatchRenderer(client.textRenderer);
+        this.floodGuard = new FloodGuard(FloodGuard.LOG_DIR.resolve(terminalInstance.terminalId + ".log"));
         instance = this;
-        keywordColors.put("WARNING", TextColor.fromRgb(0xFFA500));
-        keywordColors.put("WARN", TextColor.fromRgb(0xFFA500));
-        keywordColors.put("ERROR", TextColor.fromRgb(0xFF0000));
-        keywordColors.put("INFO", TextColor.fromRgb(0x00FF00));
     }
 
     public void render(DrawContext context, int screenWidth, int screenHeight, float newScale) {
         this.scale = Math.max(MIN_SCALE, Math.min(newScale, MAX_SCALE));
+        this.lastActiveTime = System.currentTimeMillis();
         this.terminalX = 10;
         this.terminalY = MultiTerminalScreen.TAB_HEIGHT + 10;
         this.terminalWidth = screenWidth - 20;
         this.terminalHeight = screenHeight - terminalY - 10;
-        if (this.scale != previousScale || this.terminalWidth != previousTerminalWidth) {
-            previousScale = this.scale;
-            previousTerminalWidth = this.terminalWidth;
-            rewrap();
+        this.gutterWidth = showTimestamps ? minecraftClient.textRenderer.getWidth("00:00:00 ") : 0;
+        this.wrapWidth = Math.max(1, (int) ((terminalWidth - 10) / scale) - gutterWidth);
+        if (appliedHighlightEngine != highlightEngine || appliedGlyphWidths != glyphWidths) {
+            appliedHighlightEngine = highlightEngine;
+            appliedGlyphWidths = glyphWidths;
+            cellWidth = 0;
+            wrapCache.clear();
+            lineTextCache.clear();
+            visibleRowsKey = null;
         }
+        drainPendingOutput();
         context.fill(terminalX - BORDER_THICKNESS, terminalY - BORDER_THICKNESS, terminalX + terminalWidth + BORDER_THICKNESS, terminalY, BORDER_COLOR);
         context.fill(terminalX - BORDER_THICKNESS, terminalY + terminalHeight, terminalX + terminalWidth + BORDER_THICKNESS, terminalY + terminalHeight + BORDER_THICKNESS, BORDER_COLOR);
         context.fill(terminalX - BORDER_THICKNESS, terminalY, terminalX, terminalY + terminalHeight, BORDER_COLOR);
@@ -86,30 +181,65 @@ public class TerminalRenderer {
         context.getMatrices().scale(this.scale, this.scale, 1.0f);
         int scaledWidth = (int) (textAreaWidth / this.scale);
         int scaledHeight = (int) (textAreaHeight / this.scale);
-        int x = 0;
-        int yStart = 0;
-        List<LineText> allWrappedLines;
-        synchronized (wrappedLinesCache) {
-            allWrappedLines = new ArrayList<>(wrappedLinesCache);
-        }
-        int totalLines = allWrappedLines.size();
         int visibleLines = getVisibleLines(scaledHeight);
-        scrollOffset = Math.min(scrollOffset, Math.max(0, totalLines - visibleLines));
-        int startLine = Math.max(0, totalLines - visibleLines - scrollOffset);
-        int endLine = Math.min(totalLines, startLine + visibleLines);
+        visibleLineCount = visibleLines;
+        int gridRowCount = Math.max(1, (scaledHeight - getInputFieldHeight() - getStatusBarHeight()) / minecraftClient.textRenderer.fontHeight);
+        if (emulator.resize(Math.max(1, wrapWidth / getCellWidth()), gridRowCount)) {
+            terminalInstance.getSSHManager().resizePty(emulator.getCols(), emulator.getRows());
+            if (terminalInstance.inputHandler != null) {
+                terminalInstance.inputHandler.getTerminalProcessManager().resizePty(emulator.getCols(), emulator.getRows());
+            }
+        }
+        ViewKey viewKey = new ViewKey(scrollback.version(), wrapWidth, visibleLines, anchorLine, anchorRow, followingOutput, filterVersion);
+        if (!viewKey.equals(visibleRowsKey)) {
+            visibleRows = collectVisibleRows(visibleLines);
+            visibleRowsKey = new ViewKey(viewKey.version, wrapWidth, visibleLines, anchorLine, anchorRow, followingOutput, filterVersion);
+        }
         lineInfos.clear();
-        for (int i = startLine; i < endLine; i++) {
-            LineText lineText = allWrappedLines.get(i);
-            int lineHeight = minecraftClient.textRenderer.fontHeight;
-            LineInfo lineInfo = new LineInfo(i, yStart, lineHeight, lineText.orderedText, lineText.plainText);
-            lineInfos.add(lineInfo);
-            if (isLineSelected(i)) {
-                drawSelection(context, lineInfo, x);
+        int lineHeight = minecraftClient.textRenderer.fontHeight;
+        RowPaint[] paints;
+        if (emulator.isAltScreen()) {
+            visibleRows = Collections.emptyList();
+            visibleRowsKey = null;
+            paints = collectGridPaints();
+        } else {
+            paints = new RowPaint[visibleRows.size()];
+            for (int i = 0; i < paints.length; i++) {
+                VisibleRow row = visibleRows.get(i);
+                LineText lineText = row.lineText;
+                lineInfos.add(new LineInfo(row.rowKey, i * lineHeight, lineHeight, lineText.orderedText, lineText.plainText, lineText.prefixWidths));
+                paints[i] = new RowPaint(row.rowKey, lineText, searchHighlightLine >= 0 && row.rowKey >>> 16 == searchHighlightLine,
+                        isLineSelected(row.rowKey) ? selectionVersion : -1, -1);
             }
-            context.drawText(minecraftClient.textRenderer, lineText.orderedText, x, yStart, DEFAULT_TEXT_COLOR, false);
-            yStart += lineHeight;
         }
+        FrameLayout layout = new FrameLayout(textAreaX, textAreaY, scaledWidth, scaledHeight, scale, gutterWidth);
+        boolean fullRedraw = framebuffer.ensureSize() || !layout.equals(paintedLayout);
+        int damaged = 0;
+        int paintedCount = Math.max(paints.length, paintedRows.length);
+        for (int i = 0; i < paintedCount; i++) {
+            if (fullRedraw || i >= paints.length || i >= paintedRows.length || !paints[i].sameAs(paintedRows[i])) {
+                if (damaged == 0) {
+                    framebuffer.beginWrite(context);
+                    if (fullRedraw) {
+                        batchRenderer.fill(0, 0, scaledWidth, scaledHeight, TERMINAL_BACKGROUND_COLOR);
+                    }
+                }
+                damaged++;
+                int y = i * lineHeight;
+                batchRenderer.fill(0, y, scaledWidth, y + lineHeight, TERMINAL_BACKGROUND_COLOR);
+                if (i < paints.length) {
+                    paintRow(paints[i], i < lineInfos.size() ? lineInfos.get(i) : null, y, scaledWidth);
+                }
+            }
+        }
+        if (damaged > 0) {
+            batchRenderer.flush(context, DEFAULT_TEXT_COLOR);
+            framebuffer.endWrite(context, damaged);
+        }
+        paintedRows = paints;
+        paintedLayout = layout;
         context.getMatrices().pop();
+        framebuffer.blit(context, textAreaX, textAreaY, textAreaX + textAreaWidth, textAreaY + textAreaHeight);
         int inputX = terminalX + padding;
         int inputY = terminalY + terminalHeight - padding - getInputFieldHeight() - getStatusBarHeight();
         String inputPrompt = terminalInstance.getSSHManager().isAwaitingPassword() ? "Password: " : "> ";
@@ -144,311 +274,386 @@ public class TerminalRenderer {
         context.drawText(minecraftClient.textRenderer, rightStatus, terminalX + terminalWidth - 2 - rightWidth, statusBarY + (getStatusBarHeight() - minecraftClient.textRenderer.fontHeight) / 2, DEFAULT_TEXT_COLOR, false);
     }
 
-    private void rewrap() {
-        List<LineText> newWrappedLines = new ArrayList<>();
-        synchronized (terminalOutput) {
-            String[] lines = terminalOutput.toString().split("\n", -1);
-            for (String line : lines) {
-                line = removeAllControlSequences(line);
-                if (line.trim().equals(">")) {
-                    continue;
-                }
-                Matcher tmuxMatcher = TMUX_STATUS_PATTERN.matcher(line);
-                if (tmuxMatcher.matches()) {
-                    tmuxStatusLine = removeAllAnsiSequences(line.trim()).replace("\u000f", "");
-                    continue;
+    private List<VisibleRow> collectVisibleRows(int visibleLines) {
+        long first = scrollback.firstIndex();
+        long end = scrollback.endIndex();
+        if (end <= first) {
+            return Collections.emptyList();
+        }
+        if (followingOutput || anchorLine >= end) {
+            anchorLine = end - 1;
+            anchorRow = Integer.MAX_VALUE;
+        } else if (anchorLine < first) {
+            anchorLine = first;
+            anchorRow = 0;
+        }
+        ArrayDeque<VisibleRow> rows = new ArrayDeque<>(visibleLines);
+        long line = anchorLine;
+        List<LineText> wrapped = getWrappedLine(line, end);
+        anchorRow = Math.min(anchorRow, Math.max(0, wrapped.size() - 1));
+        int row = Math.min(anchorRow, wrapped.size() - 1);
+        while (rows.size() < visibleLines) {
+            if (row >= 0) {
+                rows.addFirst(new VisibleRow(rowKey(line, row), wrapped.get(row)));
+                row--;
+            } else {
+                line = previousLineWithRows(line, first);
+                if (line < first) {
+                    break;
                 }
-                List<StyleTextPair> segments = parseKeywordsAndHighlight(line);
-                List<LineText> wrapped = wrapStyledText(segments, (int) ((terminalWidth - 10) / scale));
-                newWrappedLines.addAll(wrapped);
+                wrapped = getWrappedLine(line, end);
+                row = wrapped.size() - 1;
             }
         }
-        synchronized (wrappedLinesCache) {
-            wrappedLinesCache.clear();
-            wrappedLinesCache.addAll(newWrappedLines);
+        if (rows.size() < visibleLines) {
+            line = anchorLine;
+            wrapped = getWrappedLine(line, end);
+            row = anchorRow + 1;
+            while (rows.size() < visibleLines) {
+                if (row < wrapped.size()) {
+                    rows.addLast(new VisibleRow(rowKey(line, row), wrapped.get(row)));
+                    anchorLine = line;
+                    anchorRow = row;
+                    row++;
+                } else {
+                    line = nextLineWithRows(line, end);
+                    if (line >= end) {
+                        break;
+                    }
+                    wrapped = getWrappedLine(line, end);
+                    row = 0;
+                }
+            }
+            if (line >= end) {
+                followingOutput = true;
+            }
         }
+        return new ArrayList<>(rows);
     }
 
-    private String removeAllControlSequences(String text) {
-        if (!terminalInstance.getSSHManager().isSSH()) {
-            return text.replace("\t", "    ");
+    private List<LineText> getWrappedLine(long index, long end) {
+        if (isFilteredOut(index) || isFoldedTraceLine(index)) {
+            return Collections.emptyList();
+        }
+        int repeats = lineAttributes.repeats(index);
+        int frames = lineAttributes.traceFrames(index);
+        int traceState = frames > 0 && expandedTraces.contains(index) ? -frames : frames;
+        WrappedLine cached = wrapCache.get(index);
+        if (cached != null && cached.wrapWidth == wrapWidth && cached.sealed && cached.repeats == repeats && cached.traceState == traceState) {
+            return cached.rows;
+        }
+        String line = scrollback.get(index);
+        if (line == null) {
+            return Collections.emptyList();
+        }
+        if (traceState > 0) {
+            String firstFrame = scrollback.get(index + 1);
+            line = TRACE_COLLAPSED_PREFIX + line + TRACE_FRAME_STYLE + (firstFrame == null ? "" : VtParser.strip(firstFrame).trim())
+                    + (frames > 1 ? " (+" + (frames - 1) + " more)" : "");
+        } else if (traceState < 0) {
+            line = TRACE_EXPANDED_PREFIX + line;
+        }
+        if (repeats > 1) {
+            line = line + REPEAT_SUFFIX + repeats;
+        }
+        boolean sealed = index < end - 1;
+        if (cached != null && cached.wrapWidth == wrapWidth && cached.source.equals(line)) {
+            if (sealed) {
+                wrapCache.put(index, new WrappedLine(cached.source, wrapWidth, true, repeats, traceState, cached.rows));
+            }
+            return cached.rows;
+        }
+        LineKey key = new LineKey(line, wrapWidth);
+        List<LineText> rows = lineTextCache.get(key);
+        if (rows == null) {
+            rows = wrapLogicalLine(line);
+            lineTextCache.put(key, rows);
         }
-        Matcher matcher = ANSI_PATTERN.matcher(text);
-        return matcher.replaceAll("").replace("\t", "    ");
+        wrapCache.put(index, new WrappedLine(line, wrapWidth, sealed, repeats, traceState, rows));
+        return rows;
     }
 
-    private String removeAllAnsiSequences(String text) {
-        if (!terminalInstance.getSSHManager().isSSH()) {
-            return text.replace("\t", "    ");
-        }
-        Matcher matcher = ANSI_PATTERN.matcher(text);
-        return matcher.replaceAll("").replace("\t", "    ");
+    private static long rowKey(long line, int row) {
+        return (line << 16) | Math.min(row, 0xFFFF);
     }
 
-    public void resetCursorBlink() {
-        lastInputTime = System.currentTimeMillis();
-        cursorVisible = true;
+    private RowPaint[] collectGridPaints() {
+        ScreenGrid grid = emulator.getScreen();
+        if (gridRows.length != grid.getRows()) {
+            gridRows = new GridRow[grid.getRows()];
+        }
+        int cursorRow = grid.isCursorVisible() && cursorVisible ? grid.getCursorY() : -1;
+        RowPaint[] paints = new RowPaint[grid.getRows()];
+        for (int row = 0; row < grid.getRows(); row++) {
+            GridRow cached = gridRows[row];
+            if (cached == null || cached.version != grid.getRowVersion(row) || cached.cols != grid.getCols()) {
+                cached = buildGridRow(grid, row);
+                gridRows[row] = cached;
+            }
+            paints[row] = new RowPaint(row, cached, false, -1, row == cursorRow ? grid.getCursorX() : -1);
+        }
+        return paints;
     }
 
-    private List<StyleTextPair> parseKeywordsAndHighlight(String text) {
-        text = text.replace("\u000f", "").replace("\t", "    ");
-        List<StyleTextPair> result = new ArrayList<>();
-        Matcher bracketMatcher = BRACKET_KEYWORD_PATTERN.matcher(text);
-        int lastEnd = 0;
-        while (bracketMatcher.find()) {
-            if (bracketMatcher.start() > lastEnd) {
-                String before = text.substring(lastEnd, bracketMatcher.start());
-                result.addAll(parseAnsiAndHighlight(before));
-            }
-            String keyword = bracketMatcher.group(2).toUpperCase();
-            TextColor keywordColor = keywordColors.getOrDefault(keyword, TextColor.fromRgb(DEFAULT_TEXT_COLOR));
-            Style keywordStyle = Style.EMPTY.withColor(keywordColor);
-            String fullMatch = "[" + bracketMatcher.group(1) + bracketMatcher.group(2) + bracketMatcher.group(3) + "]";
-            result.add(new StyleTextPair(keywordStyle, null, fullMatch));
-            result.add(new StyleTextPair(Style.EMPTY, null, ""));
-            lastEnd = bracketMatcher.end();
-        }
-        if (lastEnd < text.length()) {
-            String remaining = text.substring(lastEnd);
-            result.addAll(parseAnsiAndHighlight(remaining));
-        }
-        return result;
-    }
-
-    private List<StyleTextPair> parseAnsiAndHighlight(String text) {
-        text = text.replace("\u000f", "").replace("\t", "    ");
-        List<StyleTextPair> result = new ArrayList<>();
-        Matcher matcher = ANSI_PATTERN.matcher(text);
-        int lastEnd = 0;
-        Style currentStyle = Style.EMPTY.withColor(TextColor.fromRgb(DEFAULT_TEXT_COLOR));
-        while (matcher.find()) {
-            if (matcher.start() > lastEnd) {
-                String before = text.substring(lastEnd, matcher.start());
-                if (!before.isEmpty()) {
-                    result.add(new StyleTextPair(currentStyle, null, before));
+    private void paintRow(RowPaint paint, LineInfo lineInfo, int y, int width) {
+        int lineHeight = minecraftClient.textRenderer.fontHeight;
+        if (paint.content instanceof GridRow gridRow) {
+            int cell = getCellWidth();
+            for (GridRun run : gridRow.runs) {
+                if (run.text == null) {
+                    batchRenderer.fill(run.col * cell, y, run.endCol * cell, y + lineHeight, 0xFF000000 | run.background);
+                } else {
+                    batchRenderer.text(run.text, run.col * cell, y);
+                }
+            }
+            if (paint.cursorCol >= 0) {
+                batchRenderer.fill(paint.cursorCol * cell, y, (paint.cursorCol + 1) * cell, y + lineHeight, SELECTION_COLOR);
+            }
+        } else if (paint.content instanceof LineText lineText) {
+            if (paint.highlighted) {
+                batchRenderer.fill(0, y, width, y + lineHeight, SEARCH_HIGHLIGHT_COLOR);
+            }
+            if (gutterWidth > 0 && (paint.rowKey & 0xFFFF) == 0) {
+                long time = lineAttributes.time(paint.rowKey >>> 16);
+                if (time > 0) {
+                    batchRenderer.text(Text.literal(GUTTER_TIME_FORMAT.format(Instant.ofEpochMilli(time)))
+                            .setStyle(Style.EMPTY.withColor(TextColor.fromRgb(GUTTER_COLOR))).asOrderedText(), 0, y);
                 }
             }
-            String ansiSequence = matcher.group();
-            String codeContent = ansiSequence.substring(2, ansiSequence.length() - 1);
-            currentStyle = applyAnsiCodes(currentStyle, codeContent);
-            lastEnd = matcher.end();
+            if (paint.selectionVersion >= 0 && lineInfo != null) {
+                drawSelection(lineInfo, gutterWidth);
+            }
+            for (LinkDetector.Link link : linksFor(lineText.plainText)) {
+                int end = Math.min(link.end(), lineText.prefixWidths.length - 1);
+                batchRenderer.fill(gutterWidth + lineText.prefixWidths[link.start()], y + lineHeight - 1, gutterWidth + lineText.prefixWidths[end], y + lineHeight, LINK_UNDERLINE_COLOR);
+            }
+            batchRenderer.text(lineText.orderedText, gutterWidth, y);
         }
-        if (lastEnd < text.length()) {
-            String remaining = text.substring(lastEnd);
-            if (!remaining.isEmpty()) {
-                result.add(new StyleTextPair(currentStyle, null, remaining));
+    }
+
+    private GridRow buildGridRow(ScreenGrid grid, int row) {
+        List<GridRun> backgrounds = new ArrayList<>();
+        List<GridRun> texts = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int wordStart = 0;
+        long wordStyle = CellStyle.DEFAULT;
+        int backgroundStart = 0;
+        int background = -1;
+        for (int col = 0; col <= grid.getCols(); col++) {
+            char c = col < grid.getCols() ? grid.getChar(row, col) : ' ';
+            long style = col < grid.getCols() ? effectiveCellStyle(grid.getStyle(row, col)) : CellStyle.DEFAULT;
+            int cellBackground = CellStyle.hasBackground(style) ? CellStyle.background(style) : -1;
+            if (cellBackground != background) {
+                if (background >= 0) {
+                    backgrounds.add(new GridRun(backgroundStart, col, background, null));
+                }
+                background = cellBackground;
+                backgroundStart = col;
+            }
+            if (word.length() > 0 && (c == ' ' || style != wordStyle)) {
+                texts.add(new GridRun(wordStart, col, 0, Text.literal(word.toString()).setStyle(toStyle(wordStyle)).asOrderedText()));
+                word.setLength(0);
+            }
+            if (c != ' ' && !CellStyle.has(style, CellStyle.HIDDEN)) {
+                if (word.length() == 0) {
+                    wordStart = col;
+                    wordStyle = style;
+                }
+                word.append(c);
             }
         }
-        return result;
+        backgrounds.addAll(texts);
+        return new GridRow(grid.getRowVersion(row), grid.getCols(), backgrounds);
     }
 
-    private Style applyAnsiCodes(Style style, String code) {
-        String[] codes = code.split(";");
-        int i = 0;
-        while (i < codes.length) {
-            String c = codes[i];
-            int codeNum;
-            try {
-                codeNum = Integer.parseInt(c.replaceAll("\\D", ""));
-            } catch (NumberFormatException e) {
-                i++;
+    private long effectiveCellStyle(long style) {
+        if (!CellStyle.has(style, CellStyle.INVERSE)) {
+            return style;
+        }
+        int foreground = CellStyle.hasForeground(style) ? CellStyle.foreground(style) : DEFAULT_TEXT_COLOR;
+        int background = CellStyle.hasBackground(style) ? CellStyle.background(style) : TERMINAL_BACKGROUND_COLOR & 0xFFFFFF;
+        return CellStyle.withBackground(CellStyle.withForeground(style & ~CellStyle.INVERSE, background), foreground);
+    }
+
+    private Style toStyle(long style) {
+        long key = style & ~(CellStyle.BOLD | CellStyle.DIM | CellStyle.HIDDEN);
+        Style cached = styleCache.get(key);
+        if (cached == null) {
+            cached = Style.EMPTY.withColor(TextColor.fromRgb(CellStyle.hasForeground(key) ? CellStyle.foreground(key) : DEFAULT_TEXT_COLOR))
+                    .withItalic(CellStyle.has(key, CellStyle.ITALIC))
+                    .withUnderline(CellStyle.has(key, CellStyle.UNDERLINE))
+                    .withStrikethrough(CellStyle.has(key, CellStyle.STRIKETHROUGH));
+            styleCache.put(key, cached);
+        }
+        return cached;
+    }
+
+    private int getCellWidth() {
+        if (cellWidth <= 0) {
+            cellWidth = Math.max(1, minecraftClient.textRenderer.getWidth("M"));
+        }
+        return cellWidth;
+    }
+
+    private void sendTerminalResponse(String response) {
+        SSHManager sshManager = terminalInstance.getSSHManager();
+        if (sshManager.isSSH()) {
+            sshManager.sendRaw(response);
+        } else if (terminalInstance.inputHandler != null && terminalInstance.inputHandler.getTerminalProcessManager().isPty()) {
+            terminalInstance.inputHandler.getTerminalProcessManager().sendRaw(response);
+        }
+    }
+
+    public String getCacheStats() {
+        return "Wrapped lines: " + wrapCache.describe() + "\n"
+                + "Line text: " + lineTextCache.describe() + "\n"
+                + "Interned styles: " + styleCache.size() + "\n"
+                + "Search index: " + search.indexedChunks() + " chunks\n"
+                + "Framebuffer: " + framebuffer.describe() + "\n"
+                + "Text batches: " + batchRenderer.describe() + "\n";
+    }
+
+    public boolean isForeground() {
+        return System.currentTimeMillis() - lastActiveTime < FOREGROUND_WINDOW_MS;
+    }
+
+    public void markActive() {
+        lastActiveTime = System.currentTimeMillis();
+    }
+
+    public long getLastActiveTime() {
+        return lastActiveTime;
+    }
+
+    public long getMemoryUsage() {
+        return scrollback.heapBytes() + lineAttributes.retainedBytes() + framebuffer.getRetainedBytes() + (long) (wrapCache.size() + lineTextCache.size() + linkCache.size()) * CACHE_ENTRY_BYTES;
+    }
+
+    public void dropCaches() {
+        wrapCache.clear();
+        lineTextCache.clear();
+        linkCache.clear();
+        styleCache.clear();
+        gridRows = new GridRow[0];
+        visibleRows = Collections.emptyList();
+        visibleRowsKey = null;
+        releaseFramebuffer();
+    }
+
+    private void releaseFramebuffer() {
+        framebuffer.release();
+        paintedRows = new RowPaint[0];
+        paintedLayout = null;
+    }
+
+
+    public boolean isAltScreenActive() {
+        return emulator.isAltScreen();
+    }
+
+    public boolean isApplicationCursorKeys() {
+        return emulator.isApplicationCursorKeys();
+    }
+
+    private List<LineText> wrapLogicalLine(String line) {
+        String plain = VtParser.strip(line);
+        if (plain.trim().equals(">") || TMUX_STATUS_PATTERN.matcher(plain).matches()) {
+            return Collections.emptyList();
+        }
+        List<StyleTextPair> segments = parseKeywordsAndHighlight(line);
+        return wrapStyledText(segments, wrapWidth);
+    }
+
+    private void refreshTmuxStatusLine() {
+        long end = scrollback.endIndex();
+        long start = Math.max(Math.max(tmuxScannedUpTo, scrollback.firstIndex()), end - TMUX_SCAN_LIMIT);
+        for (long index = start; index < end; index++) {
+            String line = scrollback.get(index);
+            if (line == null || line.indexOf('[') < 0) {
                 continue;
             }
-            switch (codeNum) {
-                case 0 -> style = Style.EMPTY.withColor(TextColor.fromRgb(DEFAULT_TEXT_COLOR)).withItalic(false).withUnderline(false);
-                case 1 -> {}
-                case 3 -> style = style.withItalic(true);
-                case 4 -> style = style.withUnderline(true);
-                case 22 -> {}
-                case 23 -> style = style.withItalic(false);
-                case 24 -> style = style.withUnderline(false);
-                case 27 -> {}
-                case 38, 48 -> {
-                    if (i + 1 < codes.length) {
-                        if ("2".equals(codes[i + 1])) {
-                            if (i + 4 < codes.length) {
-                                try {
-                                    int r = Integer.parseInt(codes[i + 2]);
-                                    int g = Integer.parseInt(codes[i + 3]);
-                                    int b = Integer.parseInt(codes[i + 4]);
-                                    TextColor color = TextColor.fromRgb((r << 16) | (g << 8) | b);
-                                    if (codeNum == 38) {
-                                        style = style.withColor(color);
-                                    }
-                                    i += 4;
-                                    continue;
-                                } catch (NumberFormatException ignored) {}
-                            }
-                        } else if ("5".equals(codes[i + 1])) {
-                            if (i + 2 < codes.length) {
-                                try {
-                                    int colorIndex = Integer.parseInt(codes[i + 2]);
-                                    TextColor color = TextColor.fromRgb(get256ColorRGB(colorIndex));
-                                    if (codeNum == 38) {
-                                        style = style.withColor(color);
-                                    }
-                                    i += 2;
-                                    continue;
-                                } catch (NumberFormatException ignored) {}
-                            }
-                        }
-                    }
-                }
-                default -> {
-                    if (codeNum >= 30 && codeNum <= 37) {
-                        TextColor color = getStandardColor(codeNum - 30);
-                        style = style.withColor(color);
-                    } else if (codeNum >= 90 && codeNum <= 97) {
-                        TextColor color = getBrightColor(codeNum - 90);
-                        style = style.withColor(color);
-                    }
-                }
+            String plain = VtParser.strip(line);
+            if (TMUX_STATUS_PATTERN.matcher(plain).matches()) {
+                tmuxStatusLine = plain.trim().replace("\u000f", "");
             }
-            i++;
         }
-        return style;
+        tmuxScannedUpTo = Math.max(start, end - 1);
+    }
+
+    public void resetCursorBlink() {
+        lastInputTime = System.currentTimeMillis();
+        cursorVisible = true;
+    }
+
+    private List<StyleTextPair> parseKeywordsAndHighlight(String text) {
+        return segmentCollector.collect(text, appliedHighlightEngine);
+    }
+
+    public static void setHighlightEngine(HighlightEngine engine) {
+        highlightEngine = engine;
+    }
+
+    public static void reloadGlyphWidths() {
+        glyphWidths = createGlyphWidths();
+    }
+
+    private static GlyphWidthTable createGlyphWidths() {
+        return new GlyphWidthTable(c -> MinecraftClient.getInstance().textRenderer.getWidth(String.valueOf((char) c)));
+    }
+
+    public static HighlightEngine getHighlightEngine() {
+        return highlightEngine;
     }
 
     private List<LineText> wrapStyledText(List<StyleTextPair> segments, int maxWidth) {
-        List<LineText> wrappedLines = new ArrayList<>();
-        List<StyleTextPair> currentLineSegments = new ArrayList<>();
-        int currentLineWidth = 0;
+        StringBuilder plain = new StringBuilder();
         for (StyleTextPair segment : segments) {
-            String text = segment.text;
-            Style style = segment.style;
-            int index = 0;
-            while (index < text.length()) {
-                int remainingWidth = maxWidth - currentLineWidth;
-                int charsToFit = measureTextToFit(text.substring(index), remainingWidth);
-                if (charsToFit == 0) {
-                    if (!currentLineSegments.isEmpty()) {
-                        LineText lineText = buildLineText(currentLineSegments);
-                        wrappedLines.add(lineText);
-                        currentLineSegments.clear();
-                    }
-                    currentLineWidth = 0;
-                    charsToFit = Math.max(1, measureTextToFit(text.substring(index), maxWidth));
+            plain.append(segment.text);
+        }
+        int[] prefix = appliedGlyphWidths.prefixWidths(plain);
+        List<LineText> wrappedLines = new ArrayList<>();
+        List<StyleTextPair> rowSegments = new ArrayList<>();
+        int segmentIndex = 0;
+        int segmentStart = 0;
+        int rowStart = 0;
+        while (rowStart < plain.length()) {
+            int rowEnd = Math.max(rowStart + 1, GlyphWidthTable.fit(prefix, rowStart, maxWidth));
+            rowSegments.clear();
+            while (segmentIndex < segments.size()) {
+                StyleTextPair segment = segments.get(segmentIndex);
+                int segmentEnd = segmentStart + segment.text.length();
+                int from = Math.max(rowStart, segmentStart);
+                int to = Math.min(rowEnd, segmentEnd);
+                if (from < to) {
+                    rowSegments.add(new StyleTextPair(segment.style, null, segment.text.substring(from - segmentStart, to - segmentStart)));
                 }
-                String substring = text.substring(index, index + charsToFit);
-                currentLineSegments.add(new StyleTextPair(style, null, substring));
-                int width = minecraftClient.textRenderer.getWidth(substring);
-                currentLineWidth += width;
-                index += charsToFit;
-                if (currentLineWidth >= maxWidth) {
-                    LineText lineText = buildLineText(currentLineSegments);
-                    wrappedLines.add(lineText);
-                    currentLineSegments.clear();
-                    currentLineWidth = 0;
+                if (segmentEnd > rowEnd) {
+                    break;
                 }
+                segmentStart = segmentEnd;
+                segmentIndex++;
             }
-        }
-        if (!currentLineSegments.isEmpty()) {
-            LineText lineText = buildLineText(currentLineSegments);
-            wrappedLines.add(lineText);
-        }
-        return wrappedLines;
-    }
-
-    private int measureTextToFit(String text, int maxWidth) {
-        int width = 0;
-        int index = 0;
-        while (index < text.length()) {
-            char c = text.charAt(index);
-            int charWidth = minecraftClient.textRenderer.getWidth(String.valueOf(c));
-            if (width + charWidth > maxWidth) {
-                break;
+            int[] rowPrefix = new int[rowEnd - rowStart + 1];
+            for (int i = 1; i < rowPrefix.length; i++) {
+                rowPrefix[i] = prefix[rowStart + i] - prefix[rowStart];
             }
-            width += charWidth;
-            index++;
+            wrappedLines.add(buildLineText(rowSegments, plain.substring(rowStart, rowEnd), rowPrefix));
+            rowStart = rowEnd;
         }
-        return index;
+        return wrappedLines;
     }
 
-    private LineText buildLineText(List<StyleTextPair> segments) {
+    private LineText buildLineText(List<StyleTextPair> segments, String plainText, int[] prefixWidths) {
         MutableText lineText = Text.literal("");
-        StringBuilder plainTextBuilder = new StringBuilder();
         for (StyleTextPair segment : segments) {
             Text styledText = Text.literal(segment.text).setStyle(segment.style);
             lineText.append(styledText);
-            plainTextBuilder.append(segment.text);
-        }
-        return new LineText(lineText.asOrderedText(), plainTextBuilder.toString());
-    }
-
-    private int get256ColorRGB(int index) {
-        if (index < 0 || index > 255) {
-            return 0xFFFFFF;
-        }
-        if (index < 16) {
-            return getStandardColorRGB(index);
-        } else if (index <= 231) {
-            index -= 16;
-            int r = (index / 36) % 6;
-            int g = (index / 6) % 6;
-            int b = index % 6;
-            r = r * 51;
-            g = g * 51;
-            b = b * 51;
-            return (r << 16) | (g << 8) | b;
-        } else {
-            int gray = 8 + (index - 232) * 10;
-            return (gray << 16) | (gray << 8) | gray;
-        }
-    }
-
-    private TextColor getStandardColor(int index) {
-        return switch (index) {
-            case 0 -> TextColor.fromRgb(0x000000);
-            case 1 -> TextColor.fromRgb(0xAA0000);
-            case 2 -> TextColor.fromRgb(0x00AA00);
-            case 3 -> TextColor.fromRgb(0xAA5500);
-            case 4 -> TextColor.fromRgb(0x0000AA);
-            case 5 -> TextColor.fromRgb(0xAA00AA);
-            case 6 -> TextColor.fromRgb(0x00AAAA);
-            case 7 -> TextColor.fromRgb(0xAAAAAA);
-            default -> TextColor.fromRgb(0xFFFFFF);
-        };
-    }
-
-    private TextColor getBrightColor(int index) {
-        return switch (index) {
-            case 0 -> TextColor.fromRgb(0x555555);
-            case 1 -> TextColor.fromRgb(0xFF5555);
-            case 2 -> TextColor.fromRgb(0x55FF55);
-            case 3 -> TextColor.fromRgb(0xFFFF55);
-            case 4 -> TextColor.fromRgb(0x5555FF);
-            case 5 -> TextColor.fromRgb(0xFF55FF);
-            case 6 -> TextColor.fromRgb(0x55FFFF);
-            case 7 -> TextColor.fromRgb(0xFFFFFF);
-            default -> TextColor.fromRgb(0xFFFFFF);
-        };
-    }
-
-    private int getStandardColorRGB(int index) {
-        return switch (index) {
-            case 0 -> 0x000000;
-            case 1 -> 0xAA0000;
-            case 2 -> 0x00AA00;
-            case 3 -> 0xAA5500;
-            case 4 -> 0x0000AA;
-            case 5 -> 0xAA00AA;
-            case 6 -> 0x00AAAA;
-            case 7 -> 0xAAAAAA;
-            case 8 -> 0x555555;
-            case 9 -> 0xFF5555;
-            case 10 -> 0x55FF55;
-            case 11 -> 0xFFFF55;
-            case 12 -> 0x5555FF;
-            case 13 -> 0xFF55FF;
-            case 14 -> 0x55FFFF;
-            default -> 0xFFFFFF;
-        };
+        }
+        return new LineText(lineText.asOrderedText(), plainText, prefixWidths);
     }
 
     private int getTotalLines() {
-        synchronized (wrappedLinesCache) {
-            return wrappedLinesCache.size();
-        }
+        return (int) Math.min(Integer.MAX_VALUE, scrollback.endIndex() - scrollback.firstIndex());
     }
 
     private int getVisibleLines(int scaledHeight) {
@@ -465,8 +670,10 @@ public class TerminalRenderer {
     }
 
     private OrderedText[] getStatusBarOrderedTexts(int scaledWidth) {
+        refreshTmuxStatusLine();
         if (tmuxStatusLine.isEmpty()) {
-            return new OrderedText[]{Text.literal("Remotely Session - BETA 0.5").asOrderedText(), Text.literal(new Date().toString()).asOrderedText()};
+            String left = isFilterActive() ? "Remotely Session - BETA 0.5 | Filter: " + describeFilter() : "Remotely Session - BETA 0.5";
+            return new OrderedText[]{Text.literal(left).asOrderedText(), Text.literal(new Date().toString()).asOrderedText()};
         }
         String line = tmuxStatusLine;
         String leftText;
@@ -489,72 +696,631 @@ public class TerminalRenderer {
     }
 
     public void appendOutput(String text) {
-        text = text.replace("\r", "").replace("\t", "    ");
-        List<LineText> newWrappedLines = new ArrayList<>();
-        synchronized (terminalOutput) {
-            terminalOutput.append(text);
-            String[] newLines = text.split("\n", -1);
-            for (String line : newLines) {
-                line = removeAllControlSequences(line);
-                if (line.trim().equals(">")) {
-                    continue;
+        if (pendingChars.get() > MAX_PENDING_CHARS && !minecraftClient.isOnThread()) {
+            long deadline = System.nanoTime() + BACKPRESSURE_WAIT_NANOS;
+            while (pendingChars.get() > MAX_PENDING_CHARS && System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                LockSupport.parkNanos(1_000_000L);
+            }
+            if (pendingChars.get() > MAX_PENDING_CHARS) {
+                floodGuard.shed(text);
+                outputDirty.set(true);
+                return;
+            }
+        }
+        pendingChars.addAndGet(text.length());
+        pendingOutput.offer(text);
+        outputDirty.set(true);
+    }
+
+    public boolean drainPendingOutput() {
+        return drainPendingOutput(DRAIN_BUDGET_NANOS);
+    }
+
+    public boolean isBacklogged() {
+        return pendingChars.get() > BACKLOG_CHARS;
+    }
+
+    public long getShedLines() {
+        return floodGuard.getTotalShed();
+    }
+
+    public boolean drainPendingOutput(long budgetNanos) {
+        if (!outputDirty.getAndSet(false)) {
+            if (!traceFolder.isStale()) {
+                return false;
+            }
+            synchronized (outputLock) {
+                if (traceFolder.isStale()) {
+                    finishTrace();
+                    lineAttributes.trim(scrollback.firstIndex());
+                }
+            }
+            return true;
+        }
+        synchronized (outputLock) {
+            String text;
+            int drained = 0;
+            long start = System.nanoTime();
+            while (drained < MAX_DRAIN_PER_FRAME && (text = pendingOutput.poll()) != null) {
+                pendingChars.addAndGet(-text.length());
+                ingest(text);
+                drained++;
+                if (System.nanoTime() - start > budgetNanos) {
+                    break;
                 }
-                Matcher tmuxMatcher = TMUX_STATUS_PATTERN.matcher(line);
-                if (tmuxMatcher.matches()) {
-                    tmuxStatusLine = removeAllAnsiSequences(line.trim()).replace("\u000f", "");
+            }
+            if (!pendingOutput.isEmpty()) {
+                outputDirty.set(true);
+            }
+        }
+        return true;
+    }
+
+    private void ingest(String text) {
+        emulator.feed(text);
+    }
+
+    private void writeLines(String text) {
+        String[] newLines = text.split("\n", -1);
+        for (int i = 0; i < newLines.length; i++) {
+            if (i == 0 && !scrollback.isEmpty()) {
+                if (newLines[0].isEmpty()) {
                     continue;
                 }
-                List<StyleTextPair> segments = parseKeywordsAndHighlight(line);
-                List<LineText> wrapped = wrapStyledText(segments, (int) ((terminalWidth - 10) / scale));
-                newWrappedLines.addAll(wrapped);
+                String line = scrollback.last() + newLines[0];
+                scrollback.replaceLast(line);
+                indexLine(scrollback.endIndex() - 1, line);
+                continue;
+            }
+            boolean vacated = i > 0 && completeLastLine();
+            long suppressed = floodGuard.takeReport();
+            if (suppressed > 0) {
+                placeLine("\u001B[0;38;2;255;170;0m[Remotely] " + suppressed + " lines hidden above " + floodGuard.getMaxLinesPerSecond()
+                        + " lines/s, full output in " + floodGuard.getLogPath(), vacated);
+                vacated = false;
             }
+            long shed = floodGuard.takeShedReport();
+            if (shed > 0) {
+                placeLine("\u001B[0;38;2;255;170;0m[Remotely] " + shed + " lines dropped while the terminal was behind, full output in "
+                        + floodGuard.getLogPath(), vacated);
+                vacated = false;
+            }
+            placeLine(newLines[i], vacated);
         }
-        synchronized (wrappedLinesCache) {
-            wrappedLinesCache.addAll(newWrappedLines);
+        if (scrollback instanceof MappedScrollbackStore mapped) {
+            IOException failure = mapped.takeFailure();
+            if (failure != null) {
+                placeLine("\u001B[0;38;2;255;170;0m[Remotely] Disk scrollback failed (" + failure + "), continuing in memory", false);
+            }
         }
-        minecraftClient.execute(() -> {
-            if (terminalInstance.parentScreen != null) {
-                terminalInstance.parentScreen.init();
+        lineAttributes.trim(scrollback.firstIndex());
+    }
+
+    private boolean completeLastLine() {
+        long last = scrollback.endIndex() - 1;
+        String line = scrollback.get(last);
+        if (line == null) {
+            return false;
+        }
+        int kind = StackTraceFolder.classify(line);
+        if (kind == StackTraceFolder.HEADER) {
+            if (traceFolder.isTracing()) {
+                finishTrace();
+            }
+            traceFolder.hold(line);
+            return true;
+        }
+        if (kind != StackTraceFolder.OTHER) {
+            if (!traceFolder.isTracing() && kind == StackTraceFolder.FRAME && last > scrollback.firstIndex()) {
+                traceFolder.attach(last - 1);
+            }
+            if (traceFolder.isTracing() && traceFolder.addFrame(line)) {
+                return true;
+            }
+        }
+        if (traceFolder.isTracing()) {
+            finishTrace();
+            last = scrollback.endIndex() - 1;
+        }
+        if (last > scrollback.firstIndex() && TerminalEmulator.lastPrintableIndex(line) >= 0) {
+            String previous = scrollback.get(last - 1);
+            if (previous != null && FloodGuard.sameIgnoringNumbers(line, previous)) {
+                lineAttributes.addRepeat(last - 1);
+                return true;
+            }
+        }
+        return !floodGuard.admit(line);
+    }
+
+    private void finishTrace() {
+        List<String> frames = traceFolder.getFrames();
+        long duplicate = traceFolder.findDuplicate(scrollback.firstIndex());
+        if (duplicate >= 0) {
+            lineAttributes.addRepeat(duplicate);
+            traceFolder.reset();
+            return;
+        }
+        String current = scrollback.last();
+        String header = traceFolder.getHeader();
+        long headerIndex = header != null ? scrollback.endIndex() - 1 : traceFolder.getHeaderIndex();
+        boolean reuseLast = true;
+        if (header != null) {
+            placeLine(header, true);
+            reuseLast = false;
+        }
+        for (String frame : frames) {
+            placeLine(frame, reuseLast);
+            reuseLast = false;
+        }
+        scrollback.append(current);
+        indexLine(scrollback.endIndex() - 1, current);
+        if (!frames.isEmpty() && headerIndex >= scrollback.firstIndex()) {
+            lineAttributes.setTrace(headerIndex, frames.size());
+            traceFolder.remember(headerIndex);
+        }
+        traceFolder.reset();
+    }
+
+    private boolean isFoldedTraceLine(long index) {
+        long header = lineAttributes.traceHeader(index);
+        return header >= 0 && !expandedTraces.contains(header);
+    }
+
+    public boolean toggleTrace(long headerIndex) {
+        if (lineAttributes.traceFrames(headerIndex) == 0) {
+            return false;
+        }
+        if (!expandedTraces.remove(headerIndex)) {
+            expandedTraces.add(headerIndex);
+        }
+        filterVersion++;
+        return true;
+    }
+
+    public void setAllTracesExpanded(boolean expanded) {
+        expandedTraces.clear();
+        if (expanded) {
+            for (long index = scrollback.firstIndex(); index < scrollback.endIndex(); index++) {
+                if (lineAttributes.traceFrames(index) > 0) {
+                    expandedTraces.add(index);
+                }
+            }
+        }
+        filterVersion++;
+    }
+
+    public String describeTraces() {
+        return "Stack traces: " + traceFolder.getFoldedTraces() + " folded, " + traceFolder.getDuplicateTraces() + " duplicates merged\n";
+    }
+
+    private void placeLine(String line, boolean reuseLast) {
+        if (reuseLast) {
+            scrollback.replaceLast(line);
+            lineAttributes.clearRepeat(scrollback.endIndex() - 1);
+            lineAttributes.stamp(scrollback.endIndex() - 1, System.currentTimeMillis());
+        } else {
+            scrollback.append(line);
+        }
+        indexLine(scrollback.endIndex() - 1, line);
+    }
+
+    public int getFloodLimit() {
+        return floodGuard.getMaxLinesPerSecond();
+    }
+
+    public void setFloodLimit(int linesPerSecond) {
+        floodGuard.setMaxLinesPerSecond(linesPerSecond);
+    }
+
+    public String describeFloodGuard() {
+        int limit = floodGuard.getMaxLinesPerSecond();
+        return "Flood limit: " + (limit <= 0 ? "off" : limit + " lines/s") + ", " + floodGuard.getTotalSuppressed()
+                + " lines hidden so far, " + floodGuard.getTotalShed() + " dropped on backlog, full output in " + floodGuard.getLogPath() + "\n";
+    }
+
+    private void indexLine(long index, String line) {
+        if (lineAttributes.time(index) == 0) {
+            lineAttributes.stamp(index, System.currentTimeMillis());
+        }
+        int classification = lineClassifier.classify(line);
+        if (classification == LineClassifier.UNCLASSIFIED) {
+            lineAttributes.set(index, lineAttributes.level(index - 1), lineAttributes.logger(index - 1));
+        } else {
+            lineAttributes.set(index, LineClassifier.level(classification), LineClassifier.logger(classification));
+        }
+    }
+
+    private void indexLines(long from) {
+        long end = scrollback.endIndex();
+        for (long index = Math.max(from, scrollback.firstIndex()); index < end; index++) {
+            String line = scrollback.get(index);
+            indexLine(index, line == null ? "" : line);
+        }
+    }
+
+    private boolean isFilteredOut(long index) {
+        return lineAttributes.isFiltering() && !lineAttributes.matchesFilter(index);
+    }
+
+    public void setLevelFilter(int minLevel) {
+        filterMinLevel = minLevel;
+        lineAttributes.setFilter(filterMinLevel, filterLogger);
+        filterVersion++;
+    }
+
+    public boolean setLoggerFilter(String name) {
+        int id = name == null ? -1 : lineClassifier.findLogger(name);
+        if (name != null && id < 0) {
+            return false;
+        }
+        filterLogger = id;
+        lineAttributes.setFilter(filterMinLevel, filterLogger);
+        filterVersion++;
+        return true;
+    }
+
+    public void clearFilter() {
+        filterMinLevel = LineClassifier.NONE;
+        filterLogger = -1;
+        lineAttributes.setFilter(filterMinLevel, filterLogger);
+        filterVersion++;
+    }
+
+    public boolean isFilterActive() {
+        return filterMinLevel > LineClassifier.NONE || filterLogger >= 0;
+    }
+
+    public String describeFilter() {
+        if (!isFilterActive()) {
+            return "none";
+        }
+        StringBuilder sb = new StringBuilder();
+        if (filterMinLevel > LineClassifier.NONE) {
+            sb.append(LineClassifier.levelName(filterMinLevel)).append('+');
+        }
+        if (filterLogger >= 0) {
+            if (!sb.isEmpty()) {
+                sb.append(", ");
+            }
+            sb.append('[').append(lineClassifier.loggerName(filterLogger)).append(']');
+        }
+        return sb.toString();
+    }
+
+    public List<String> getKnownLoggers() {
+        return lineClassifier.getLoggers();
+    }
+
+    private void clearSelection() {
+        selectionStartLine = -1;
+        selectionStartChar = -1;
+        selectionEndLine = -1;
+        selectionEndChar = -1;
+        selectionVersion++;
+    }
+
+    public void setScrollbackLimits(int maxLines, long maxBytes) {
+        synchronized (outputLock) {
+            if (scrollback instanceof ScrollbackBuffer buffer) {
+                buffer.setLimits(maxLines, maxBytes);
+            }
+        }
+    }
+
+    public ScrollbackMode getScrollbackMode() {
+        return scrollback.isDiskBacked() ? ScrollbackMode.DISK : ScrollbackMode.MEMORY;
+    }
+
+    public void setScrollbackMode(ScrollbackMode mode) throws IOException {
+        synchronized (outputLock) {
+            if (mode == getScrollbackMode()) {
+                return;
+            }
+            if (traceFolder.isTracing()) {
+                finishTrace();
+            }
+            traceFolder.clear();
+            expandedTraces.clear();
+            ScrollbackStore target = mode == ScrollbackMode.DISK ? new MappedScrollbackStore() : new ScrollbackBuffer();
+            long start = target.isDiskBacked() ? scrollback.firstIndex() : Math.max(scrollback.firstIndex(), scrollback.endIndex() - ScrollbackBuffer.DEFAULT_MAX_LINES);
+            long[] times = new long[(int) (scrollback.endIndex() - start)];
+            for (long index = start; index < scrollback.endIndex(); index++) {
+                String line = scrollback.get(index);
+                target.append(line == null ? "" : line);
+                times[(int) (index - start)] = lineAttributes.time(index);
+            }
+            scrollback.close();
+            scrollback = target;
+            lineAttributes.reset(scrollback.firstIndex());
+            for (int i = 0; i < times.length; i++) {
+                lineAttributes.stamp(scrollback.firstIndex() + i, times[i]);
+            }
+            indexLines(scrollback.firstIndex());
+            search.reset();
+            clearSearchState();
+            tmuxScannedUpTo = 0;
+            wrapCache.clear();
+            lineTextCache.clear();
+            visibleRowsKey = null;
+            followingOutput = true;
+            clearSelection();
+        }
+    }
+
+    public void saveOutput(Path path) throws IOException {
+        synchronized (outputLock) {
+            scrollback.saveTo(path);
+        }
+    }
+
+    public Path exportOutput(ScrollbackExporter.Format format, boolean selectionOnly, Path path) {
+        long from = scrollback.firstIndex();
+        long to = scrollback.endIndex();
+        if (selectionOnly) {
+            if (selectionStartLine < 0 || selectionEndLine < 0) {
+                return null;
+            }
+            from = Math.max(from, Math.min(selectionStartLine, selectionEndLine) >>> 16);
+            to = Math.min(to, (Math.max(selectionStartLine, selectionEndLine) >>> 16) + 1);
+        }
+        Path target = path != null ? path : EXPORT_DIR.resolve(terminalInstance.terminalId + "-" + System.currentTimeMillis() + "." + format.extension());
+        String key = "export:" + target;
+        ScrollbackStore store = scrollback;
+        ScrollbackExporter exporter = new ScrollbackExporter(format, highlightEngine);
+        long start = from;
+        long end = to;
+        TaskScheduler.submit(TaskScheduler.Lane.IO, () -> {
+            long[] lastUpdate = {0};
+            try {
+                long bytes = exporter.export(store, start, end, target, (lines, total, written) -> {
+                    long now = System.currentTimeMillis();
+                    if (now - lastUpdate[0] >= EXPORT_PROGRESS_INTERVAL_MS) {
+                        lastUpdate[0] = now;
+                        String message = "Exporting " + target.getFileName() + ": " + (total == 0 ? 100 : lines * 100 / total) + "% (" + TerminalMemoryBudget.formatBytes(written) + ")";
+                        minecraftClient.execute(() -> NotificationManager.showProgress(key, message, NotificationManager.Type.INFO));
+                    }
+                });
+                String message = "Exported " + (end - start) + " lines to " + target.getFileName() + " (" + TerminalMemoryBudget.formatBytes(bytes) + ")";
+                minecraftClient.execute(() -> NotificationManager.showProgress(key, message, NotificationManager.Type.INFO));
+                appendOutput(message + ": " + target + "\n");
+            } catch (IOException | RuntimeException e) {
+                String message = "Export of " + target.getFileName() + " failed: " + e.getMessage();
+                minecraftClient.execute(() -> NotificationManager.showProgress(key, message, NotificationManager.Type.ERROR));
+                appendOutput(message + "\n");
             }
         });
+        return target;
+    }
+
+    public void loadOutput(Path path) throws IOException {
+        synchronized (outputLock) {
+            long start = scrollback.endIndex() - 1;
+            scrollback.loadFrom(path);
+            indexLines(start);
+            followingOutput = true;
+        }
+    }
+
+    public void close() {
+        search.cancel();
+        synchronized (outputLock) {
+            floodGuard.close();
+            scrollback.close();
+        }
+        minecraftClient.execute(this::releaseFramebuffer);
     }
 
     public void scroll(int direction, int scaledHeight) {
-        int totalLines = getTotalLines();
-        int visibleLines = getVisibleLines(scaledHeight);
         int scrollMultiplier = InputUtil.isKeyPressed(minecraftClient.getWindow().getHandle(), GLFW.GLFW_KEY_LEFT_SHIFT) ||
                 InputUtil.isKeyPressed(minecraftClient.getWindow().getHandle(), GLFW.GLFW_KEY_RIGHT_SHIFT) ? 5 : 1;
         int scrollAmount = SCROLL_STEP * scrollMultiplier;
         if (direction > 0) {
-            if (scrollOffset < totalLines - visibleLines) {
-                scrollOffset += scrollAmount;
-            }
+            moveAnchorUp(scrollAmount);
         } else if (direction < 0) {
-            if (scrollOffset > 0) {
-                scrollOffset -= scrollAmount;
+            moveAnchorDown(scrollAmount);
+        }
+    }
+
+    private void moveAnchorUp(int rows) {
+        long first = scrollback.firstIndex();
+        long end = scrollback.endIndex();
+        if (end <= first) {
+            return;
+        }
+        if (followingOutput) {
+            anchorLine = end - 1;
+            anchorRow = Integer.MAX_VALUE;
+            followingOutput = false;
+        }
+        anchorLine = Math.max(first, Math.min(anchorLine, end - 1));
+        List<LineText> wrapped = getWrappedLine(anchorLine, end);
+        anchorRow = Math.min(anchorRow, wrapped.size() - 1);
+        while (rows > 0) {
+            if (anchorRow > 0) {
+                anchorRow--;
+                rows--;
+                continue;
+            }
+            long line = previousLineWithRows(anchorLine, first);
+            if (line < first) {
+                anchorRow = Math.max(anchorRow, 0);
+                break;
             }
+            anchorLine = line;
+            anchorRow = getWrappedLine(line, end).size() - 1;
+            rows--;
         }
-        scrollOffset = Math.max(0, Math.min(scrollOffset, totalLines - visibleLines));
+    }
+
+    private void moveAnchorDown(int rows) {
+        if (followingOutput) {
+            return;
+        }
+        long end = scrollback.endIndex();
+        while (rows > 0) {
+            List<LineText> wrapped = getWrappedLine(anchorLine, end);
+            if (anchorRow < wrapped.size() - 1) {
+                anchorRow++;
+                rows--;
+                continue;
+            }
+            long line = nextLineWithRows(anchorLine, end);
+            if (line >= end) {
+                break;
+            }
+            anchorLine = line;
+            anchorRow = 0;
+            rows--;
+        }
+        if (anchorRow >= getWrappedLine(anchorLine, end).size() - 1 && nextLineWithRows(anchorLine, end) >= end) {
+            followingOutput = true;
+        }
+    }
+
+    private long nextLineWithRows(long line, long end) {
+        line++;
+        while (line < end) {
+            if (isFilteredOut(line)) {
+                line = lineAttributes.nextMatch(line);
+                continue;
+            }
+            long header = lineAttributes.traceHeader(line);
+            if (header >= 0 && !expandedTraces.contains(header)) {
+                line = header + lineAttributes.traceFrames(header) + 1;
+                continue;
+            }
+            break;
+        }
+        return line;
+    }
+
+    private long previousLineWithRows(long line, long first) {
+        line--;
+        while (line >= first) {
+            if (isFilteredOut(line)) {
+                line = lineAttributes.previousMatch(line);
+                continue;
+            }
+            long header = lineAttributes.traceHeader(line);
+            if (header >= 0 && !expandedTraces.contains(header)) {
+                line = header;
+                continue;
+            }
+            break;
+        }
+        return line;
     }
 
     public void scrollToTop(int scaledHeight) {
-        int totalLines = getTotalLines();
-        int visibleLines = getVisibleLines(scaledHeight);
-        scrollOffset = totalLines - visibleLines;
-        scrollOffset = Math.max(0, scrollOffset);
+        followingOutput = false;
+        anchorLine = scrollback.firstIndex();
+        anchorRow = 0;
     }
 
     public void scrollToBottom() {
-        scrollOffset = 0;
+        followingOutput = true;
+    }
+
+    public void startSearch(String query, boolean regex) {
+        clearSearchState();
+        if (query.isEmpty()) {
+            search.cancel();
+            return;
+        }
+        search.start(scrollback, query, regex);
+    }
+
+    public boolean jumpToSearchResult(int direction) {
+        ScrollbackSearch.Task task = search.current();
+        if (task == null || task.size() == 0) {
+            return false;
+        }
+        int count = task.size();
+        searchCursor = searchCursor < 0 ? (direction > 0 ? 0 : count - 1) : Math.floorMod(searchCursor + direction, count);
+        jumpToLine(task.get(searchCursor));
+        return true;
+    }
+
+    public void clearSearch() {
+        search.cancel();
+        clearSearchState();
+    }
+
+    public String getSearchStatus() {
+        ScrollbackSearch.Task task = search.current();
+        if (task == null) {
+            return "";
+        }
+        if (task.getError() != null) {
+            return task.getError();
+        }
+        int count = task.size();
+        String status = (searchCursor < 0 ? "-" : String.valueOf(searchCursor + 1)) + "/" + count;
+        if (!task.isDone()) {
+            status += " searching...";
+        } else if (task.getSkippedChunks() > 0) {
+            status += " (" + task.getSkippedChunks() + " chunks skipped)";
+        }
+        return status;
+    }
+
+    private void clearSearchState() {
+        searchCursor = -1;
+        searchHighlightLine = -1;
+    }
+
+    public long jumpToTime(long millis) {
+        long first = scrollback.firstIndex();
+        long end = scrollback.endIndex();
+        if (end <= first) {
+            return -1;
+        }
+        long line = Math.max(first, Math.min(lineAttributes.findTime(millis), end - 1));
+        jumpToLine(line);
+        return lineAttributes.time(line);
+    }
+
+    public boolean isShowTimestamps() {
+        return showTimestamps;
+    }
+
+    public void setShowTimestamps(boolean showTimestamps) {
+        this.showTimestamps = showTimestamps;
+    }
+
+    private void jumpToLine(long line) {
+        long first = scrollback.firstIndex();
+        long end = scrollback.endIndex();
+        if (end <= first) {
+            return;
+        }
+        searchHighlightLine = Math.max(first, Math.min(line, end - 1));
+        if (isFilteredOut(searchHighlightLine)) {
+            clearFilter();
+        }
+        if (isFoldedTraceLine(searchHighlightLine)) {
+            toggleTrace(lineAttributes.traceHeader(searchHighlightLine));
+        }
+        followingOutput = false;
+        anchorLine = searchHighlightLine;
+        anchorRow = 0;
+        moveAnchorDown(visibleLineCount / 2);
     }
 
-    public StringBuilder getTerminalOutput() {
-        return terminalOutput;
+    public ScrollbackStore getScrollback() {
+        return scrollback;
     }
 
     public boolean mouseClicked(double mouseX, double mouseY, int button) {
         if (button == GLFW.GLFW_MOUSE_BUTTON_LEFT) {
             if (isMouseOverTerminal(mouseX, mouseY)) {
+                if (isControlDown() && openLinkAt(mouseX, mouseY)) {
+                    return true;
+                }
+                long rowKey = getLineIndexAtPosition(mouseY);
+                if (rowKey >= 0 && (rowKey & 0xFFFF) == 0 && getCharIndexAtPosition(mouseX, rowKey) <= 1 && toggleTrace(rowKey >>> 16)) {
+                    return true;
+                }
                 isSelecting = true;
                 updateSelectionStart(mouseX, mouseY);
                 updateSelectionEnd(mouseX, mouseY);
@@ -564,6 +1330,74 @@ public class TerminalRenderer {
         return false;
     }
 
+    private boolean isControlDown() {
+        long handle = minecraftClient.getWindow().getHandle();
+        return InputUtil.isKeyPressed(handle, GLFW.GLFW_KEY_LEFT_CONTROL) || InputUtil.isKeyPressed(handle, GLFW.GLFW_KEY_RIGHT_CONTROL);
+    }
+
+    private List<LinkDetector.Link> linksFor(String plainText) {
+        List<LinkDetector.Link> links = linkCache.get(plainText);
+        if (links == null) {
+            links = LinkDetector.detect(plainText);
+            linkCache.put(plainText, links);
+        }
+        return links;
+    }
+
+    private boolean openLinkAt(double mouseX, double mouseY) {
+        long rowKey = getLineIndexAtPosition(mouseY);
+        if (rowKey < 0) {
+            return false;
+        }
+        int charIndex = getCharIndexAtPosition(mouseX, rowKey);
+        for (LineInfo lineInfo : lineInfos) {
+            if (lineInfo.lineNumber == rowKey) {
+                LinkDetector.Link link = LinkDetector.find(linksFor(lineInfo.plainText), charIndex);
+                if (link == null) {
+                    return false;
+                }
+                if (link.kind() == LinkDetector.URL) {
+                    ConfirmLinkScreen.open(minecraftClient.currentScreen, link.target());
+                } else {
+                    openPath(link);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void openPath(LinkDetector.Link link) {
+        Screen parent = minecraftClient.currentScreen;
+        ServerInfo server = terminalInstance instanceof ServerTerminalInstance serverTerminal ? serverTerminal.serverInfo : null;
+        String target = link.target().startsWith("~/") ? System.getProperty("user.home") + link.target().substring(1) : link.target();
+        if (server != null && server.isRemote) {
+            String remote = target.startsWith("/") ? target : server.path.replace("\\", "/") + "/" + target;
+            FileEditorScreen editor = new FileEditorScreen(minecraftClient, parent, Paths.get(remote), server);
+            editor.goToLine(link.line());
+            minecraftClient.setScreen(editor);
+            return;
+        }
+        String baseDirectory = server != null ? server.path : terminalInstance.inputHandler.getTerminalProcessManager() == null ? null
+                : terminalInstance.inputHandler.getTerminalProcessManager().getCurrentDirectory();
+        Path path;
+        try {
+            path = Paths.get(baseDirectory == null ? System.getProperty("user.dir") : baseDirectory).resolve(target).normalize();
+        } catch (InvalidPathException e) {
+            terminalInstance.appendOutput("Invalid path: " + target + "\n");
+            return;
+        }
+        if (Files.isDirectory(path)) {
+            minecraftClient.setScreen(new FileExplorerScreen(minecraftClient, parent, new ServerInfo(path.toString())));
+        } else if (Files.isRegularFile(path)) {
+            FileEditorScreen editor = new FileEditorScreen(minecraftClient, parent, path, server != null ? server : new ServerInfo(path.getParent().toString()));
+            editor.goToLine(link.line());
+            minecraftClient.setScreen(editor);
+        } else {
+            terminalInstance.appendOutput("No such file: " + path + "\n");
+        }
+    }
+
     public boolean mouseReleased(double mouseX, double mouseY, int button) {
         if (button == GLFW.GLFW_MOUSE_BUTTON_LEFT) {
             if (isSelecting) {
@@ -589,26 +1423,28 @@ public class TerminalRenderer {
     }
 
     private void updateSelectionStart(double mouseX, double mouseY) {
-        int lineIndex = getLineIndexAtPosition(mouseY);
+        long lineIndex = getLineIndexAtPosition(mouseY);
         if (lineIndex != -1) {
             int charIndex = getCharIndexAtPosition(mouseX, lineIndex);
             selectionStartLine = lineIndex;
             selectionStartChar = charIndex;
             selectionEndLine = lineIndex;
             selectionEndChar = charIndex;
+            selectionVersion++;
         }
     }
 
     private void updateSelectionEnd(double mouseX, double mouseY) {
-        int lineIndex = getLineIndexAtPosition(mouseY);
+        long lineIndex = getLineIndexAtPosition(mouseY);
         if (lineIndex != -1) {
             int charIndex = getCharIndexAtPosition(mouseX, lineIndex);
             selectionEndLine = lineIndex;
             selectionEndChar = charIndex;
+            selectionVersion++;
         }
     }
 
-    private int getLineIndexAtPosition(double mouseY) {
+    private long getLineIndexAtPosition(double mouseY) {
         double relativeY = mouseY - terminalY - 5;
         relativeY /= scale;
         for (LineInfo lineInfo : lineInfos) {
@@ -619,7 +1455,7 @@ public class TerminalRenderer {
         return -1;
     }
 
-    private int getCharIndexAtPosition(double mouseX, int lineIndex) {
+    private int getCharIndexAtPosition(double mouseX, long lineIndex) {
         LineInfo lineInfo = null;
         for (LineInfo li : lineInfos) {
             if (li.lineNumber == lineIndex) {
@@ -630,31 +1466,21 @@ public class TerminalRenderer {
         if (lineInfo == null) return -1;
         double relativeX = mouseX - terminalX - 5;
         relativeX /= scale;
-        String lineText = lineInfo.plainText;
-        int charIndex = 0;
-        int x = 0;
-        for (char c : lineText.toCharArray()) {
-            int charWidth = minecraftClient.textRenderer.getWidth(String.valueOf(c));
-            if (x + (double) charWidth / 2 > relativeX) {
-                return charIndex;
-            }
-            x += charWidth;
-            charIndex++;
-        }
-        return charIndex;
+        relativeX -= gutterWidth;
+        return GlyphWidthTable.indexAt(lineInfo.prefixWidths, relativeX);
     }
 
-    private boolean isLineSelected(int lineNumber) {
+    private boolean isLineSelected(long lineNumber) {
         if (selectionStartLine == -1 || selectionEndLine == -1) {
             return false;
         }
-        int startLine = Math.min(selectionStartLine, selectionEndLine);
-        int endLine = Math.max(selectionStartLine, selectionEndLine);
+        long startLine = Math.min(selectionStartLine, selectionEndLine);
+        long endLine = Math.max(selectionStartLine, selectionEndLine);
         return lineNumber >= startLine && lineNumber <= endLine;
     }
 
-    private void drawSelection(DrawContext context, LineInfo lineInfo, int x) {
-        int lineNumber = lineInfo.lineNumber;
+    private void drawSelection(LineInfo lineInfo, int x) {
+        long lineNumber = lineInfo.lineNumber;
         int yPosition = lineInfo.y;
         String lineText = lineInfo.plainText;
         int selectionStart = 0;
@@ -675,12 +1501,10 @@ public class TerminalRenderer {
         }
         selectionStart = Math.max(0, selectionStart);
         selectionEnd = Math.min(lineText.length(), selectionEnd);
-        String beforeSelection = lineText.substring(0, selectionStart);
-        String selectionText = lineText.substring(selectionStart, selectionEnd);
-        int selectionXStart = x + minecraftClient.textRenderer.getWidth(beforeSelection);
-        int selectionWidth = minecraftClient.textRenderer.getWidth(selectionText);
+        int selectionXStart = x + lineInfo.prefixWidths[selectionStart];
+        int selectionWidth = lineInfo.prefixWidths[selectionEnd] - lineInfo.prefixWidths[selectionStart];
         int selectionYEnd = yPosition + minecraftClient.textRenderer.fontHeight;
-        context.fill(selectionXStart, yPosition, selectionXStart + selectionWidth, selectionYEnd, SELECTION_COLOR);
+        batchRenderer.fill(selectionXStart, yPosition, selectionXStart + selectionWidth, selectionYEnd, SELECTION_COLOR);
     }
 
     public void copySelectionToClipboard() {
@@ -692,18 +1516,19 @@ public class TerminalRenderer {
         selectionStartChar = -1;
         selectionEndLine = -1;
         selectionEndChar = -1;
+        selectionVersion++;
     }
 
     private String getSelectedText() {
         if (selectionStartLine == -1 || selectionEndLine == -1) {
             return "";
         }
-        int startLine = selectionStartLine;
-        int endLine = selectionEndLine;
+        long startLine = selectionStartLine;
+        long endLine = selectionEndLine;
         int startChar = selectionStartChar;
         int endChar = selectionEndChar;
         if (startLine > endLine || (startLine == endLine && startChar > endChar)) {
-            int tempLine = startLine;
+            long tempLine = startLine;
             startLine = endLine;
             endLine = tempLine;
             int tempChar = startChar;
@@ -711,15 +1536,9 @@ public class TerminalRenderer {
             endChar = tempChar;
         }
         StringBuilder sb = new StringBuilder();
-        for (int i = startLine; i <= endLine; i++) {
-            LineInfo lineInfo = null;
-            for (LineInfo li : lineInfos) {
-                if (li.lineNumber == i) {
-                    lineInfo = li;
-                    break;
-                }
-            }
-            if (lineInfo == null) continue;
+        for (LineInfo lineInfo : lineInfos) {
+            long i = lineInfo.lineNumber;
+            if (i < startLine || i > endLine) continue;
             String lineText = lineInfo.plainText;
             int lineStartChar = (i == startLine) ? startChar : 0;
             int lineEndChar = (i == endLine) ? endChar : lineText.length();
@@ -740,16 +1559,20 @@ public class TerminalRenderer {
     }
 
     public void clearOutput() {
-        synchronized (terminalOutput) {
-            terminalOutput.setLength(0);
-        }
-        synchronized (wrappedLinesCache) {
-            wrappedLinesCache.clear();
+        synchronized (outputLock) {
+            pendingOutput.clear();
+            pendingChars.set(0);
+            scrollback.clear();
+            traceFolder.clear();
+            expandedTraces.clear();
+            search.reset();
+            followingOutput = true;
         }
         minecraftClient.execute(() -> {
-            if (terminalInstance.parentScreen != null) {
-                terminalInstance.parentScreen.init();
-            }
+            wrapCache.clear();
+            lineTextCache.clear();
+            visibleRowsKey = null;
+            clearSearchState();
         });
     }
 
@@ -759,6 +1582,106 @@ public class TerminalRenderer {
         return Math.max(totalLines, visibleLines) * minecraftClient.textRenderer.fontHeight;
     }
 
+    private class ScrollbackSink implements TerminalEmulator.OutputSink {
+        @Override
+        public void write(String text) {
+            writeLines(text);
+        }
+
+        @Override
+        public void clearLine() {
+            if (!scrollback.isEmpty()) {
+                scrollback.replaceLast("");
+            }
+        }
+
+        @Override
+        public void backspace() {
+            String last = scrollback.last();
+            if (last == null) {
+                return;
+            }
+            int index = TerminalEmulator.lastPrintableIndex(last);
+            if (index >= 0) {
+                scrollback.replaceLast(last.substring(0, index) + last.substring(index + 1));
+            }
+        }
+    }
+
+    private class SegmentCollector implements VtHandler {
+        private final VtParser parser = new VtParser(this);
+        private final StringBuilder text = new StringBuilder();
+        private long[] styles = new long[256];
+        private long style = CellStyle.DEFAULT;
+
+        List<StyleTextPair> collect(String source, HighlightEngine engine) {
+            style = CellStyle.DEFAULT;
+            text.setLength(0);
+            parser.reset();
+            parser.feed(source);
+            String plain = text.toString();
+            engine.highlight(plain, styles);
+            List<StyleTextPair> segments = new ArrayList<>();
+            int runStart = 0;
+            for (int i = 1; i <= plain.length(); i++) {
+                if (i == plain.length() || styles[i] != styles[runStart]) {
+                    segments.add(new StyleTextPair(toStyle(styles[runStart]), null, plain.substring(runStart, i)));
+                    runStart = i;
+                }
+            }
+            return segments;
+        }
+
+        private void append(char c) {
+            if (text.length() == styles.length) {
+                styles = Arrays.copyOf(styles, styles.length * 2);
+            }
+            styles[text.length()] = style;
+            text.append(c);
+        }
+
+        @Override
+        public void print(char c) {
+            append(c);
+        }
+
+        @Override
+        public void execute(char c) {
+            if (c == '\t') {
+                for (int i = 0; i < 4; i++) {
+                    append(' ');
+                }
+            }
+        }
+
+        @Override
+        public void csiDispatch(char command, int[] params, int paramCount, int subParams, char privateMarker, int intermediates) {
+            if (command == 'm' && privateMarker == 0 && intermediates == 0) {
+                style = CellStyle.applySgr(style, params, paramCount, subParams);
+            }
+        }
+
+        @Override
+        public void escDispatch(char command, int intermediates) {
+        }
+    }
+
+    private record GridRun(int col, int endCol, int background, OrderedText text) {
+    }
+
+    private record RowPaint(long rowKey, Object content, boolean highlighted, int selectionVersion, int cursorCol) {
+        boolean sameAs(RowPaint other) {
+            return other != null && rowKey == other.rowKey && content == other.content && highlighted == other.highlighted
+                    && selectionVersion == other.selectionVersion && cursorCol == other.cursorCol;
+        }
+    }
+
+    private record FrameLayout(int x, int y, int width, int height, float scale, int gutterWidth) {
+    }
+
+    private record GridRow(int version, int cols, List<GridRun> runs) {
+    }
+
     private static class StyleTextPair {
         final Style style;
         final TextColor backgroundColor;
@@ -770,21 +1693,35 @@ public class TerminalRenderer {
         }
     }
 
-    private record LineText(OrderedText orderedText, String plainText) {
+    private record LineText(OrderedText orderedText, String plainText, int[] prefixWidths) {
+    }
+
+    private record WrappedLine(String source, int wrapWidth, boolean sealed, int repeats, int traceState, List<LineText> rows) {
+    }
+
+    private record LineKey(String line, int wrapWidth) {
+    }
+
+    private record VisibleRow(long rowKey, LineText lineText) {
+    }
+
+    private record ViewKey(long version, int wrapWidth, int visibleLines, long anchorLine, int anchorRow, boolean following, int filterVersion) {
     }
 
     public static class LineInfo {
-        final int lineNumber;
+        final long lineNumber;
         final int y;
         final int height;
         final OrderedText orderedText;
         final String plainText;
-        LineInfo(int lineNumber, int y, int height, OrderedText orderedText, String plainText) {
+        final int[] prefixWidths;
+        LineInfo(long lineNumber, int y, int height, OrderedText orderedText, String plainText, int[] prefixWidths) {
             this.lineNumber = lineNumber;
             this.y = y;
             this.height = height;
             this.orderedText = orderedText;
             this.plainText = plainText;
+            this.prefixWidths = prefixWidths;
         }
     }
 }
\ No newline at end of file
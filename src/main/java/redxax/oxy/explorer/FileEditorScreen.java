@@ -25,6 +25,7 @@ public class FileEditorScreen extends Screen {
     private final MultiLineTextEditor textEditor;
     private final ArrayList<String> originalContent = new ArrayList<>();
     private boolean unsaved;
+    private int pendingLine = 0;
     private int baseColor = 0xFF181818;
     private int lighterColor = 0xFF222222;
     private int borderColor = 0xFF333333;
@@ -82,6 +83,10 @@ public class FileEditorScreen extends Screen {
     protected void init() {
         super.init();
         this.textEditor.init(10, 40, this.width - 20, this.height - 80);
+        if (pendingLine > 0) {
+            textEditor.goToLine(pendingLine - 1);
+            pendingLine = 0;
+        }
         btnW = 50;
         btnH = 20;
         saveButtonX = this.width - 60;
@@ -90,6 +95,10 @@ public class FileEditorScreen extends Screen {
         backButtonY = saveButtonY;
     }
 
+    public void goToLine(int line) {
+        this.pendingLine = line;
+    }
+
     @Override
     public boolean charTyped(char chr, int keyCode) {
         boolean used = textEditor.charTyped(chr, keyCode);
@@ -641,6 +650,13 @@ public class FileEditorScreen extends Screen {
             return false;
         }
 
+        public void goToLine(int line) {
+            cursorLine = Math.max(0, Math.min(line, lines.size() - 1));
+            cursorPos = 0;
+            int visibleLines = Math.max(1, height / (mc.textRenderer.fontHeight + 2));
+            scrollOffset = Math.max(0, cursorLine - visibleLines / 2);
+        }
+
         public void scroll(double amount) {
             if (GLFW.glfwGetKey(mc.getWindow().getHandle(), GLFW.GLFW_KEY_LEFT_SHIFT) == GLFW.GLFW_PRESS ||
                     GLFW.glfwGetKey(mc.getWindow().getHandle(), GLFW.GLFW_KEY_RIGHT_SHIFT) == GLFW.GLFW_PRESS) {
@@ -8,6 +8,7 @@ import net.minecraft.text.Text;
 import org.lwjgl.glfw.GLFW;
 import redxax.oxy.servers.ServerInfo;
 import redxax.oxy.SSHManager;
+import redxax.oxy.TaskScheduler;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
@@ -57,7 +58,7 @@ public class FileExplorerScreen extends Screen implements FileManager.FileManage
             ".html", ".js", ".java", ".py", ".css", ".vsh", ".fsh", ".glsl", ".nu",
             ".bash", ".fish"
     );
-    private final ExecutorService directoryLoader = Executors.newSingleThreadExecutor();
+    private final TaskScheduler.Group directoryLoader = TaskScheduler.serialGroup("directory-loader");
     private static final Map<String, List<EntryData>> remoteCache = new ConcurrentHashMap<>();
     private boolean loading = false;
 
@@ -107,6 +108,13 @@ public class FileExplorerScreen extends Screen implements FileManager.FileManage
         loadDirectory(currentPath);
     }
 
+    @Override
+    public void removed() {
+        directoryLoader.cancel();
+        loading = false;
+        super.removed();
+    }
+
     @Override
     public boolean keyPressed(int keyCode, int scanCode, int modifiers) {
         boolean ctrl = (modifiers & GLFW.GLFW_MOD_CONTROL) != 0;
@@ -529,7 +537,7 @@ public class FileExplorerScreen extends Screen implements FileManager.FileManage
             }
         }
         loading = true;
-        directoryLoader.submit(() -> {
+        directoryLoader.submit(TaskScheduler.Lane.IO, () -> {
             try {
                 List<EntryData> temp;
                 if (serverInfo.isRemote) {
@@ -1,12 +1,28 @@
 package redxax.oxy.input;
 
+import redxax.oxy.FrameTimeGovernor;
+import redxax.oxy.RemotelyClient;
+import redxax.oxy.TaskScheduler;
 import redxax.oxy.TerminalInstance;
+import redxax.oxy.TerminalRenderer;
 import redxax.oxy.SSHManager;
 import redxax.oxy.ServerTerminalInstance;
 import redxax.oxy.servers.ServerState;
+import redxax.oxy.terminal.LineClassifier;
+import redxax.oxy.terminal.ScrollbackExporter;
+import redxax.oxy.terminal.ScrollbackMode;
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 
 public class CommandExecutor {
     private final TerminalInstance terminalInstance;
@@ -24,6 +40,10 @@ public class CommandExecutor {
     }
 
     public void executeCommand(String command, StringBuilder inputBuffer) throws IOException {
+        if (command.startsWith(":")) {
+            executeBuiltinCommand(command.substring(1).trim());
+            return;
+        }
         if (terminalInstance instanceof ServerTerminalInstance sti) {
             if (sti.serverInfo.state == ServerState.STOPPED || sti.serverInfo.state == ServerState.CRASHED) {
                 return;
@@ -75,6 +95,151 @@ public class CommandExecutor {
         }
     }
 
+    private void executeBuiltinCommand(String command) throws IOException {
+        String[] parts = command.split("\\s+");
+        if (parts[0].equalsIgnoreCase("scrollback")) {
+            if (parts.length < 2) {
+                terminalInstance.appendOutput("Scrollback mode: " + terminalInstance.renderer.getScrollbackMode().name().toLowerCase() + "\n");
+                return;
+            }
+            ScrollbackMode mode = switch (parts[1].toLowerCase()) {
+                case "disk" -> ScrollbackMode.DISK;
+                case "memory" -> ScrollbackMode.MEMORY;
+                default -> null;
+            };
+            if (mode == null) {
+                terminalInstance.appendOutput("Usage: :scrollback [memory|disk]\n");
+                return;
+            }
+            terminalInstance.renderer.setScrollbackMode(mode);
+            terminalInstance.appendOutput("Scrollback mode set to " + parts[1].toLowerCase() + ".\n");
+        } else if (parts[0].equalsIgnoreCase("cache")) {
+            terminalInstance.appendOutput(terminalInstance.renderer.getCacheStats());
+        } else if (parts[0].equalsIgnoreCase("filter")) {
+            TerminalRenderer renderer = terminalInstance.renderer;
+            if (parts.length < 2) {
+                terminalInstance.appendOutput("Filter: " + renderer.describeFilter() + "\nLoggers: " + String.join(", ", renderer.getKnownLoggers()) + "\n");
+                return;
+            }
+            if (parts[1].equalsIgnoreCase("off")) {
+                renderer.clearFilter();
+            } else if (parts[1].equalsIgnoreCase("logger")) {
+                String name = parts.length < 3 || parts[2].equalsIgnoreCase("off") ? null : command.substring(command.toLowerCase().indexOf("logger") + 6).trim();
+                if (!renderer.setLoggerFilter(name)) {
+                    terminalInstance.appendOutput("Unknown logger: " + name + "\n");
+                    return;
+                }
+            } else {
+                int level = LineClassifier.parseLevel(parts[1]);
+                if (level == LineClassifier.NONE) {
+                    terminalInstance.appendOutput("Usage: :filter [trace|debug|info|warn|error|fatal|off] | :filter logger <name|off>\n");
+                    return;
+                }
+                renderer.setLevelFilter(level);
+            }
+            terminalInstance.appendOutput("Filter: " + renderer.describeFilter() + "\n");
+        } else if (parts[0].equalsIgnoreCase("flood")) {
+            if (parts.length >= 2) {
+                try {
+                    terminalInstance.renderer.setFloodLimit(parts[1].equalsIgnoreCase("off") ? 0 : Integer.parseInt(parts[1]));
+                } catch (NumberFormatException e) {
+                    terminalInstance.appendOutput("Usage: :flood [lines per second|off]\n");
+                    return;
+                }
+            }
+            terminalInstance.appendOutput(terminalInstance.renderer.describeFloodGuard());
+        } else if (parts[0].equalsIgnoreCase("traces")) {
+            if (parts.length >= 2 && (parts[1].equalsIgnoreCase("expand") || parts[1].equalsIgnoreCase("collapse"))) {
+                terminalInstance.renderer.setAllTracesExpanded(parts[1].equalsIgnoreCase("expand"));
+            }
+            terminalInstance.appendOutput(terminalInstance.renderer.describeTraces());
+        } else if (parts[0].equalsIgnoreCase("timestamps")) {
+            TerminalRenderer renderer = terminalInstance.renderer;
+            renderer.setShowTimestamps(parts.length >= 2 ? parts[1].equalsIgnoreCase("on") : !renderer.isShowTimestamps());
+            terminalInstance.appendOutput("Timestamps " + (renderer.isShowTimestamps() ? "shown" : "hidden") + ".\n");
+        } else if (parts[0].equalsIgnoreCase("time")) {
+            if (parts.length < 2) {
+                terminalInstance.appendOutput("Usage: :time [yyyy-MM-dd] HH:mm[:ss]\n");
+                return;
+            }
+            LocalDateTime target;
+            try {
+                if (parts.length >= 3) {
+                    target = LocalDateTime.of(LocalDate.parse(parts[1]), LocalTime.parse(parts[2]));
+                } else {
+                    target = LocalDateTime.of(LocalDate.now(), LocalTime.parse(parts[1]));
+                    if (target.isAfter(LocalDateTime.now())) {
+                        target = target.minusDays(1);
+                    }
+                }
+            } catch (DateTimeParseException e) {
+                terminalInstance.appendOutput("Usage: :time [yyyy-MM-dd] HH:mm[:ss]\n");
+                return;
+            }
+            long found = terminalInstance.renderer.jumpToTime(target.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            terminalInstance.appendOutput(found <= 0 ? "No timestamped output to seek.\n"
+                    : "Jumped to output from " + LocalDateTime.ofInstant(Instant.ofEpochMilli(found), ZoneId.systemDefault()).withNano(0) + ".\n");
+        } else if (parts[0].equalsIgnoreCase("export")) {
+            ScrollbackExporter.Format format = ScrollbackExporter.Format.PLAIN;
+            boolean selectionOnly = false;
+            Path path = null;
+            for (int i = 1; i < parts.length; i++) {
+                switch (parts[i].toLowerCase()) {
+                    case "plain", "txt" -> format = ScrollbackExporter.Format.PLAIN;
+                    case "ansi" -> format = ScrollbackExporter.Format.ANSI;
+                    case "html" -> format = ScrollbackExporter.Format.HTML;
+                    case "selection" -> selectionOnly = true;
+                    default -> {
+                        try {
+                            path = Paths.get(command.substring(command.indexOf(parts[i])).trim());
+                        } catch (InvalidPathException e) {
+                            terminalInstance.appendOutput("Invalid export path: " + e.getMessage() + "\n");
+                            return;
+                        }
+                    }
+                }
+                if (path != null) {
+                    break;
+                }
+            }
+            if (terminalInstance.renderer.exportOutput(format, selectionOnly, path) == null) {
+                terminalInstance.appendOutput("Nothing selected to export.\n");
+            }
+        } else if (parts[0].equalsIgnoreCase("governor")) {
+            FrameTimeGovernor governor = RemotelyClient.INSTANCE.frameGovernor;
+            if (parts.length >= 2) {
+                if (parts[1].equalsIgnoreCase("on") || parts[1].equalsIgnoreCase("off")) {
+                    governor.setEnabled(parts[1].equalsIgnoreCase("on"));
+                } else {
+                    try {
+                        governor.setBudgetNanos((long) (Double.parseDouble(parts[1]) * 1_000_000L));
+                    } catch (NumberFormatException e) {
+                        terminalInstance.appendOutput("Usage: :governor [on|off|frame budget in ms]\n");
+                        return;
+                    }
+                }
+            }
+            terminalInstance.appendOutput(governor.describe());
+        } else if (parts[0].equalsIgnoreCase("threads")) {
+            terminalInstance.appendOutput(TaskScheduler.describe());
+        } else if (parts[0].equalsIgnoreCase("highlight")) {
+            terminalInstance.appendOutput(RemotelyClient.INSTANCE.loadHighlightRules());
+        } else if (parts[0].equalsIgnoreCase("memory")) {
+            RemotelyClient client = RemotelyClient.INSTANCE;
+            if (parts.length >= 2) {
+                try {
+                    client.memoryBudget.setBudgetBytes(Long.parseLong(parts[1]) * 1024 * 1024);
+                } catch (NumberFormatException e) {
+                    terminalInstance.appendOutput("Usage: :memory [budget in MB]\n");
+                    return;
+                }
+            }
+            terminalInstance.appendOutput(client.memoryBudget.describe(client.getTerminalRenderers()));
+        } else {
+            terminalInstance.appendOutput("Unknown command: :" + parts[0] + "\n");
+        }
+    }
+
     private void updateCurrentDirectoryFromCommand(String command) {
         if (command.startsWith("cd ")) {
             String path = command.substring(3).trim();
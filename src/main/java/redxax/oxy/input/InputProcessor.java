@@ -42,6 +42,10 @@ public class InputProcessor {
             }
             return false;
         }
+        if (isForwardingKeys()) {
+            sendRaw(String.valueOf(chr));
+            return true;
+        }
         if (chr == '`' || chr == ' ') {
             return false;
         }
@@ -104,6 +108,14 @@ public class InputProcessor {
             }
             return false;
         }
+        if (isForwardingKeys()) {
+            String sequence = encodeKey(keyCode, ctrlHeld);
+            if (sequence != null) {
+                sendRaw(sequence);
+                return true;
+            }
+            return false;
+        }
         switch (keyCode) {
             case GLFW.GLFW_KEY_TAB:
                 int wordStart = findWordStart(inputBuffer, cursorPosition);
@@ -294,4 +306,46 @@ public class InputProcessor {
         }
         return index + 1;
     }
+
+    private boolean isForwardingKeys() {
+        return (sshManager.isSSH() || commandExecutor.getTerminalProcessManager().isPty()) && terminalInstance.renderer.isAltScreenActive();
+    }
+
+    private void sendRaw(String data) {
+        if (sshManager.isSSH()) {
+            sshManager.sendRaw(data);
+        } else {
+            commandExecutor.getTerminalProcessManager().sendRaw(data);
+        }
+    }
+
+    private String encodeKey(int keyCode, boolean ctrlHeld) {
+        if (ctrlHeld && keyCode >= GLFW.GLFW_KEY_A && keyCode <= GLFW.GLFW_KEY_Z) {
+            return String.valueOf((char) (keyCode - GLFW.GLFW_KEY_A + 1));
+        }
+        if (ctrlHeld && keyCode == GLFW.GLFW_KEY_LEFT_BRACKET) {
+            return "\u001B";
+        }
+        String cursorPrefix = terminalInstance.renderer.isApplicationCursorKeys() ? "\u001BO" : "\u001B[";
+        return switch (keyCode) {
+            case GLFW.GLFW_KEY_ENTER, GLFW.GLFW_KEY_KP_ENTER -> "\r";
+            case GLFW.GLFW_KEY_BACKSPACE -> "\u007F";
+            case GLFW.GLFW_KEY_TAB -> "\t";
+            case GLFW.GLFW_KEY_UP -> cursorPrefix + "A";
+            case GLFW.GLFW_KEY_DOWN -> cursorPrefix + "B";
+            case GLFW.GLFW_KEY_RIGHT -> cursorPrefix + "C";
+            case GLFW.GLFW_KEY_LEFT -> cursorPrefix + "D";
+            case GLFW.GLFW_KEY_HOME -> cursorPrefix + "H";
+            case GLFW.GLFW_KEY_END -> cursorPrefix + "F";
+            case GLFW.GLFW_KEY_INSERT -> "\u001B[2~";
+            case GLFW.GLFW_KEY_DELETE -> "\u001B[3~";
+            case GLFW.GLFW_KEY_PAGE_UP -> "\u001B[5~";
+            case GLFW.GLFW_KEY_PAGE_DOWN -> "\u001B[6~";
+            case GLFW.GLFW_KEY_F1 -> "\u001BOP";
+            case GLFW.GLFW_KEY_F2 -> "\u001BOQ";
+            case GLFW.GLFW_KEY_F3 -> "\u001BOR";
+            case GLFW.GLFW_KEY_F4 -> "\u001BOS";
+            default -> null;
+        };
+    }
 }
@@ -0,0 +1,175 @@
+package redxax.oxy.input;
+
+import redxax.oxy.TaskScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public abstract class ProcessBackend {
+    private static final String OS_NAME = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+
+    public static ProcessBackend forCurrentPlatform() {
+        if (OS_NAME.contains("win")) {
+            return new WindowsShell();
+        }
+        Path script = findExecutable("script");
+        return new UnixShell(OS_NAME.contains("linux") ? script : null);
+    }
+
+    public abstract ProcessBuilder createShell(String workingDirectory, int cols, int rows);
+
+    public abstract boolean isPty();
+
+    public void resize(Process process, int cols, int rows) {
+    }
+
+    private static Path findExecutable(String name) {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return null;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty()) {
+                continue;
+            }
+            Path candidate = Paths.get(dir, name);
+            if (Files.isExecutable(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static File directory(String workingDirectory) {
+        File dir = workingDirectory == null ? null : new File(workingDirectory);
+        return dir != null && dir.isDirectory() ? dir : null;
+    }
+
+    static class WindowsShell extends ProcessBackend {
+        @Override
+        public ProcessBuilder createShell(String workingDirectory, int cols, int rows) {
+            ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/k", "powershell");
+            processBuilder.directory(directory(workingDirectory));
+            processBuilder.redirectErrorStream(true);
+            return processBuilder;
+        }
+
+        @Override
+        public boolean isPty() {
+            return false;
+        }
+    }
+
+    static class UnixShell extends ProcessBackend {
+        private final Path script;
+        private final String shell;
+        private final AtomicLong pendingSize = new AtomicLong(-1);
+        private final AtomicBoolean resizing = new AtomicBoolean(false);
+        private volatile long appliedSize = -1;
+        private Process ttyProcess;
+        private Path tty;
+
+        UnixShell(Path script) {
+            this.script = script;
+            String env = System.getenv("SHELL");
+            this.shell = env != null && !env.isBlank() && Files.isExecutable(Paths.get(env)) ? env : "/bin/sh";
+        }
+
+        @Override
+        public ProcessBuilder createShell(String workingDirectory, int cols, int rows) {
+            ProcessBuilder processBuilder;
+            appliedSize = packSize(cols, rows);
+            if (script != null) {
+                String command = "stty cols " + cols + " rows " + rows + " 2>/dev/null; exec " + quote(shell) + " -i";
+                processBuilder = new ProcessBuilder(script.toString(), "-q", "-f", "-e", "-c", command, "/dev/null");
+            } else {
+                processBuilder = new ProcessBuilder(shell, "-i");
+            }
+            processBuilder.environment().put("TERM", "xterm-256color");
+            processBuilder.environment().put("COLUMNS", String.valueOf(cols));
+            processBuilder.environment().put("LINES", String.valueOf(rows));
+            processBuilder.directory(directory(workingDirectory));
+            processBuilder.redirectErrorStream(true);
+            return processBuilder;
+        }
+
+        @Override
+        public boolean isPty() {
+            return script != null;
+        }
+
+        @Override
+        public void resize(Process process, int cols, int rows) {
+            if (script == null || process == null) {
+                return;
+            }
+            long size = packSize(cols, rows);
+            if (size == appliedSize && pendingSize.get() == -1) {
+                return;
+            }
+            pendingSize.set(size);
+            if (resizing.compareAndSet(false, true)) {
+                TaskScheduler.submit(TaskScheduler.Lane.IO, () -> applyResize(process));
+            }
+        }
+
+        private void applyResize(Process process) {
+            try {
+                long size;
+                while ((size = pendingSize.getAndSet(-1)) != -1) {
+                    if (size == appliedSize) {
+                        continue;
+                    }
+                    if (ttyProcess != process) {
+                        tty = findTty(process.toHandle());
+                        for (int attempt = 0; tty == null && attempt < 20 && process.isAlive(); attempt++) {
+                            Thread.sleep(25);
+                            tty = findTty(process.toHandle());
+                        }
+                        if (tty == null) {
+                            return;
+                        }
+                        ttyProcess = process;
+                    }
+                    new ProcessBuilder("stty", "-F", tty.toString(), "cols", String.valueOf(size >>> 32), "rows", String.valueOf(size & 0xFFFFFFFFL))
+                            .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor();
+                    appliedSize = size;
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to resize pty: " + e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                resizing.set(false);
+                if (pendingSize.get() != -1 && resizing.compareAndSet(false, true)) {
+                    TaskScheduler.submit(TaskScheduler.Lane.IO, () -> applyResize(process));
+                }
+            }
+        }
+
+        private static long packSize(int cols, int rows) {
+            return ((long) cols << 32) | rows;
+        }
+
+        private static Path findTty(ProcessHandle root) {
+            return root.children().map(child -> Paths.get("/proc", String.valueOf(child.pid()), "fd", "0")).map(fd -> {
+                try {
+                    Path target = Files.readSymbolicLink(fd);
+                    return target.startsWith("/dev/pts") ? target : null;
+                } catch (IOException e) {
+                    return null;
+                }
+            }).filter(tty -> tty != null).findFirst().orElse(null);
+        }
+
+        private static String quote(String value) {
+            return "'" + value.replace("'", "'\\''") + "'";
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package redxax.oxy.input;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class ProcessTreeKiller {
+    public static final long DEFAULT_GRACE_MS = 1000;
+    private static final long HANGUP_WAIT_MS = 250;
+    private static final long FORCE_WAIT_MS = 1000;
+    private static final long POLL_INTERVAL_MS = 5;
+    private static final boolean PROCFS = Files.isDirectory(Paths.get("/proc/self"));
+
+    public record Result(int processes, int forced, int survivors, long millis) {
+        public String describe() {
+            return String.format("%d process%s terminated in %d ms%s%s", processes, processes == 1 ? "" : "es", millis,
+                    forced > 0 ? " (" + forced + " killed forcibly)" : "", survivors > 0 ? ", " + survivors + " still alive" : "");
+        }
+    }
+
+    public static Result terminate(ProcessHandle root, long graceMillis, Runnable hangup) {
+        long start = System.nanoTime();
+        Set<ProcessHandle> tree = new LinkedHashSet<>();
+        collect(root, tree);
+        Set<ProcessHandle> session = new LinkedHashSet<>();
+        session.add(root);
+        root.children().forEach(session::add);
+        Set<ProcessHandle> jobs = new LinkedHashSet<>(tree);
+        jobs.removeAll(session);
+        for (ProcessHandle handle : jobs) {
+            handle.destroy();
+        }
+        await(jobs, graceMillis);
+        if (hangup != null) {
+            hangup.run();
+        }
+        List<ProcessHandle> alive = await(session, HANGUP_WAIT_MS);
+        for (ProcessHandle handle : alive) {
+            handle.destroy();
+        }
+        alive = await(tree, HANGUP_WAIT_MS);
+        int forced = 0;
+        if (!alive.isEmpty()) {
+            Set<ProcessHandle> remaining = new LinkedHashSet<>();
+            for (ProcessHandle handle : alive) {
+                collect(handle, remaining);
+            }
+            for (ProcessHandle handle : remaining) {
+                if (handle.destroyForcibly()) {
+                    forced++;
+                }
+            }
+            tree.addAll(remaining);
+            alive = await(remaining, FORCE_WAIT_MS);
+        }
+        return new Result(tree.size(), forced, alive.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static void collect(ProcessHandle root, Set<ProcessHandle> tree) {
+        root.descendants().forEach(tree::add);
+        tree.add(root);
+    }
+
+    private static List<ProcessHandle> await(Set<ProcessHandle> handles, long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<ProcessHandle> alive = new ArrayList<>(handles);
+        while (true) {
+            alive.removeIf(handle -> !isRunning(handle));
+            if (alive.isEmpty() || System.nanoTime() >= deadline) {
+                return alive;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return alive;
+            }
+        }
+    }
+
+    private static boolean isRunning(ProcessHandle handle) {
+        if (!handle.isAlive()) {
+            return false;
+        }
+        if (!PROCFS) {
+            return true;
+        }
+        try {
+            String stat = Files.readString(Paths.get("/proc", String.valueOf(handle.pid()), "stat"));
+            int end = stat.lastIndexOf(')');
+            return end < 0 || end + 2 >= stat.length() || stat.charAt(end + 2) != 'Z';
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
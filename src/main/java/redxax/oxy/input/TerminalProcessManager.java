@@ -1,14 +1,16 @@
 package redxax.oxy.input;
 
+import net.minecraft.client.MinecraftClient;
+import redxax.oxy.NotificationManager;
+import redxax.oxy.TaskScheduler;
 import redxax.oxy.TerminalInstance;
 import redxax.oxy.SSHManager;
 import redxax.oxy.ServerTerminalInstance;
 import redxax.oxy.servers.ServerState;
+import redxax.oxy.terminal.StreamLineReader;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,7 +19,11 @@ public class TerminalProcessManager {
     public InputStream terminalInputStream;
     public InputStream terminalErrorStream;
     public Writer writer;
-    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    private final TaskScheduler.Group readers = TaskScheduler.group("terminal");
+    private final TaskScheduler.Group input = TaskScheduler.serialGroup("terminal-input");
+    private final ProcessBackend backend = ProcessBackend.forCurrentPlatform();
+    private volatile int ptyCols = 80;
+    private volatile int ptyRows = 24;
     private volatile boolean isRunning = true;
     public final TerminalInstance terminalInstance;
     private final SSHManager sshManager;
@@ -51,8 +57,7 @@ public class TerminalProcessManager {
                     }
                 }
             }
-            ProcessBuilder processBuilder = new ProcessBuilder("cmd.exe", "/k", "powershell");
-            processBuilder.redirectErrorStream(true);
+            ProcessBuilder processBuilder = backend.createShell(currentDirectory, ptyCols, ptyRows);
             terminalProcess = processBuilder.start();
             terminalInputStream = terminalProcess.getInputStream();
             terminalErrorStream = terminalProcess.getErrorStream();
@@ -69,8 +74,8 @@ public class TerminalProcessManager {
     }
 
     protected void startReaders() {
-        executorService.submit(this::readTerminalOutput);
-        executorService.submit(this::readErrorOutput);
+        readers.submit(TaskScheduler.Lane.STREAM, this::readTerminalOutput);
+        readers.submit(TaskScheduler.Lane.STREAM, this::readErrorOutput);
     }
 
     private boolean checkExistingServerPID() {
@@ -95,38 +100,32 @@ public class TerminalProcessManager {
     private void readTerminalOutput() {
         try {
             if (isDetachedServer) return;
-            byte[] buffer = new byte[1024];
-            int numRead;
-            StringBuilder outputBuffer = new StringBuilder();
-            while (isRunning && terminalProcess != null && (numRead = terminalInputStream.read(buffer)) != -1) {
-                String text = new String(buffer, 0, numRead, StandardCharsets.UTF_8).replace("\u0000", "");
-                outputBuffer.append(text);
-                int index;
-                while ((index = outputBuffer.indexOf("\n")) != -1) {
-                    String line = outputBuffer.substring(0, index);
-                    outputBuffer.delete(0, index + 1);
-                    terminalInstance.appendOutput(line + "\n");
-                    if (sshManager != null && sshManager.isSSH() && line.trim().equalsIgnoreCase("logout")) {
-                        sshManager.shutdown();
-                        terminalInstance.appendOutput("SSH session closed. Returned to local terminal.\n");
+            StreamLineReader reader = new StreamLineReader(terminalInputStream, StreamLineReader.DEFAULT_BUFFER_BYTES, !isPty());
+            String batch;
+            while (isRunning && terminalProcess != null && (batch = reader.readBatch()) != null) {
+                terminalInstance.appendOutput(batch);
+                boolean checkLines = (sshManager != null && sshManager.isSSH()) || terminalInstance instanceof ServerTerminalInstance;
+                int start = 0;
+                while (start < batch.length()) {
+                    int end = batch.indexOf('\n', start);
+                    if (end < 0) {
+                        end = batch.length();
                     }
-                    if (terminalInstance instanceof ServerTerminalInstance) {
-                        detectServerState((ServerTerminalInstance)terminalInstance, line);
+                    if (batch.startsWith("Directory: ", start)) {
+                        currentDirectory = batch.substring(start + "Directory: ".length(), end).trim();
                     }
-                    updateCurrentDirectory(line);
-                }
-            }
-            if (!outputBuffer.isEmpty()) {
-                String leftover = outputBuffer.toString();
-                terminalInstance.appendOutput(leftover);
-                if (sshManager != null && sshManager.isSSH() && leftover.trim().equalsIgnoreCase("logout")) {
-                    sshManager.shutdown();
-                    terminalInstance.appendOutput("SSH session closed. Returned to local terminal.\n");
-                }
-                if (terminalInstance instanceof ServerTerminalInstance) {
-                    detectServerState((ServerTerminalInstance)terminalInstance, leftover);
+                    if (checkLines) {
+                        String line = batch.substring(start, end);
+                        if (sshManager != null && sshManager.isSSH() && line.trim().equalsIgnoreCase("logout")) {
+                            sshManager.shutdown();
+                            terminalInstance.appendOutput("SSH session closed. Returned to local terminal.\n");
+                        }
+                        if (terminalInstance instanceof ServerTerminalInstance) {
+                            detectServerState((ServerTerminalInstance)terminalInstance, line);
+                        }
+                    }
+                    start = end + 1;
                 }
-                updateCurrentDirectory(leftover);
             }
             if (terminalInstance instanceof ServerTerminalInstance sti) {
                 if (sti.processManager.terminalProcess != null && !sti.processManager.terminalProcess.isAlive()) {
@@ -154,36 +153,31 @@ public class TerminalProcessManager {
         }
     }
 
-    private void updateCurrentDirectory(String outputLine) {
-        if (outputLine.startsWith("Directory: ")) {
-            currentDirectory = outputLine.substring("Directory: ".length()).trim();
-        }
-    }
-
     private void readErrorOutput() {
         try {
             if (isDetachedServer) return;
-            byte[] buffer = new byte[1024];
-            int numRead;
-            StringBuilder outputBuffer = new StringBuilder();
-            while (isRunning && terminalProcess != null && (numRead = terminalErrorStream.read(buffer)) != -1) {
-                String text = new String(buffer, 0, numRead, StandardCharsets.UTF_8).replace("\u0000", "");
-                outputBuffer.append(text);
-                int index;
-                while ((index = outputBuffer.indexOf("\n")) != -1) {
-                    String line = outputBuffer.substring(0, index);
-                    outputBuffer.delete(0, index + 1);
-                    terminalInstance.appendOutput("ERROR: " + line + "\n");
+            StreamLineReader reader = new StreamLineReader(terminalErrorStream, StreamLineReader.DEFAULT_BUFFER_BYTES);
+            StringBuilder prefixed = new StringBuilder();
+            String batch;
+            while (isRunning && terminalProcess != null && (batch = reader.readBatch()) != null) {
+                prefixed.setLength(0);
+                int start = 0;
+                while (start < batch.length()) {
+                    int end = batch.indexOf('\n', start);
+                    boolean terminated = end >= 0;
+                    if (!terminated) {
+                        end = batch.length();
+                    }
+                    prefixed.append("ERROR: ").append(batch, start, end);
+                    if (terminated) {
+                        prefixed.append('\n');
+                    }
                     if (terminalInstance instanceof ServerTerminalInstance) {
-                        detectServerCrash((ServerTerminalInstance)terminalInstance, line);
+                        detectServerCrash((ServerTerminalInstance)terminalInstance, batch.substring(start, end));
                     }
+                    start = end + 1;
                 }
-            }
-            if (!outputBuffer.isEmpty()) {
-                terminalInstance.appendOutput("ERROR: " + outputBuffer);
-                if (terminalInstance instanceof ServerTerminalInstance) {
-                    detectServerCrash((ServerTerminalInstance)terminalInstance, outputBuffer.toString());
-                }
+                terminalInstance.appendOutput(prefixed.toString());
             }
         }  catch (IOException e) {
             terminalInstance.appendOutput("Error reading terminal error output: " + e.getMessage() + "\n");
@@ -204,25 +198,64 @@ public class TerminalProcessManager {
         return writer;
     }
 
+    public boolean isPty() {
+        return backend.isPty() && !(terminalInstance instanceof ServerTerminalInstance) && terminalProcess != null && terminalProcess.isAlive();
+    }
+
+    public void sendRaw(String data) {
+        Writer target = writer;
+        if (target == null) {
+            return;
+        }
+        input.submit(TaskScheduler.Lane.STREAM, () -> {
+            try {
+                target.write(data);
+                target.flush();
+            } catch (IOException ignored) {
+            }
+        });
+    }
+
+    public void resizePty(int cols, int rows) {
+        ptyCols = cols;
+        ptyRows = rows;
+        if (isPty()) {
+            backend.resize(terminalProcess, cols, rows);
+        }
+    }
+
+    private ProcessTreeKiller.Result terminate(Process process) {
+        ProcessTreeKiller.Result result = ProcessTreeKiller.terminate(process.toHandle(), ProcessTreeKiller.DEFAULT_GRACE_MS, () -> {
+            try {
+                process.getOutputStream().close();
+            } catch (IOException ignored) {
+            }
+        });
+        terminalInstance.appendOutput("Terminal " + result.describe() + ".\n");
+        return result;
+    }
+
     public void shutdown() {
         isRunning = false;
         if (!(terminalInstance instanceof ServerTerminalInstance) && terminalProcess != null && terminalProcess.isAlive()) {
-            try {
-                long pid = terminalProcess.pid();
-                ProcessBuilder pb = new ProcessBuilder("taskkill", "/PID", Long.toString(pid), "/T", "/F");
-                Process killProcess = pb.start();
-                killProcess.waitFor();
-                terminalInstance.appendOutput("Terminal process and its child processes terminated.\n");
-            } catch (IOException | InterruptedException e) {
-                terminalInstance.appendOutput("Error shutting down terminal: " + e.getMessage() + "\n");
-                logger.log(Level.SEVERE, "Error shutting down terminal", e);
-            }
+            Process process = terminalProcess;
             terminalProcess = null;
+            MinecraftClient client = MinecraftClient.getInstance();
+            if (client != null && client.isOnThread()) {
+                TaskScheduler.submit(TaskScheduler.Lane.IO, () -> {
+                    ProcessTreeKiller.Result result = terminate(process);
+                    client.execute(() -> NotificationManager.addNotification("Terminal " + result.describe(),
+                            result.survivors() > 0 ? NotificationManager.Type.WARN : NotificationManager.Type.INFO));
+                });
+            } else {
+                terminate(process);
+            }
         }
         if (sshManager != null) {
             sshManager.shutdown();
         }
-        executorService.shutdownNow();
+        input.cancelAndJoin();
+        readers.cancelAndJoin();
         if (terminalInstance instanceof ServerTerminalInstance) {
             terminalInstance.appendOutput("Server is detached. It will keep running if alive.\n");
         } else {
@@ -231,14 +264,11 @@ public class TerminalProcessManager {
     }
 
     public void saveTerminalOutput(Path path) throws IOException {
-        Files.writeString(path, terminalInstance.renderer.getTerminalOutput().toString(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        terminalInstance.renderer.saveOutput(path);
     }
 
     public void loadTerminalOutput(Path path) throws IOException {
-        String content = Files.readString(path);
-        synchronized (terminalInstance.renderer.getTerminalOutput()) {
-            terminalInstance.renderer.getTerminalOutput().append(content);
-        }
+        terminalInstance.renderer.loadOutput(path);
     }
 
     public String getCurrentDirectory() {
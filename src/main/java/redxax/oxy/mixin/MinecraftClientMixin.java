@@ -0,0 +1,20 @@
+package redxax.oxy.mixin;
+
+import net.minecraft.client.MinecraftClient;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import redxax.oxy.RemotelyClient;
+
+@Mixin(MinecraftClient.class)
+public abstract class MinecraftClientMixin {
+
+    @Inject(method = "render", at = @At("HEAD"))
+    private void recordFrameTime(boolean tick, CallbackInfo ci) {
+        if (RemotelyClient.INSTANCE != null) {
+            RemotelyClient.INSTANCE.frameGovernor.onFrame(System.nanoTime());
+        }
+    }
+}
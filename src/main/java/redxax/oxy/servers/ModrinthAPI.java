@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import redxax.oxy.TaskScheduler;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -19,6 +20,7 @@ public class ModrinthAPI {
     private static final Gson gson = new Gson();
     private static final HttpClient client = HttpClient.newBuilder()
             .version(HttpClient.Version.HTTP_2)
+            .executor(TaskScheduler.executor(TaskScheduler.Lane.NETWORK))
             .build();
     private static final String USER_AGENT = "Remotely";
 
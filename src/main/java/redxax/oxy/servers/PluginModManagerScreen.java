@@ -28,6 +28,7 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.gson.JsonParser;
 import redxax.oxy.Notification;
+import redxax.oxy.TaskScheduler;
 
 public class PluginModManagerScreen extends Screen {
     private final MinecraftClient minecraftClient;
@@ -286,7 +287,7 @@ public class PluginModManagerScreen extends Screen {
                     Identifier textureId = Identifier.tryParse("oxy_mod:" + texKey);
                     if (textureId != null) {
                         iconTextures.put(resource.iconUrl, textureId);
-                        CompletableFuture.runAsync(() -> {
+                        TaskScheduler.submit(TaskScheduler.Lane.NETWORK, () -> {
                             try (InputStream inputStream = new URL(resource.iconUrl).openStream()) {
                                 NativeImage nativeImage = loadImage(inputStream, resource.iconUrl);
                                 minecraftClient.getTextureManager().registerTexture(textureId, new NativeImageBackedTexture(nativeImage));
@@ -375,7 +376,7 @@ public class PluginModManagerScreen extends Screen {
     }
 
     private void installMrPack(ModrinthResource resource) {
-        Thread t = new Thread(() -> {
+        TaskScheduler.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 String exePath = "C:\\remotely\\mrpack-install-windows.exe";
                 String serverDir = "C:\\remotely\\servers\\" + resource.name;
@@ -419,11 +420,10 @@ public class PluginModManagerScreen extends Screen {
                 installButtonTexts.put(resource.slug, "Installed");
             });
         });
-        t.start();
     }
 
     private void fetchAndInstallResource(ModrinthResource resource) {
-        Thread t = new Thread(() -> {
+        TaskScheduler.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 // Use the project version ID if available instead of the version string
                 // to avoid 400 errors from Modrinth's API.
@@ -477,7 +477,6 @@ public class PluginModManagerScreen extends Screen {
                 installButtonTexts.put(resource.slug, "Installed");
             });
         });
-        t.start();
     }
 
     private String fetchDownloadUrl(String versionID) {
@@ -6,6 +6,7 @@ import net.minecraft.client.gui.screen.Screen;
 import net.minecraft.text.Text;
 import redxax.oxy.RemotelyClient;
 import redxax.oxy.ServerTerminalInstance;
+import redxax.oxy.TaskScheduler;
 import redxax.oxy.TerminalInstance;
 import redxax.oxy.explorer.FileExplorerScreen;
 import redxax.oxy.SSHManager;
@@ -449,7 +450,7 @@ public class ServerManagerScreen extends Screen {
         if (hostInfo.sshManager == null) {
             hostInfo.sshManager = new SSHManager(hostInfo);
         }
-        new Thread(() -> {
+        TaskScheduler.submit(TaskScheduler.Lane.NETWORK, () -> {
             try {
                 hostInfo.sshManager.connectToRemoteHost(hostInfo.getUser(), hostInfo.getIp(), hostInfo.getPort(), hostInfo.getPassword());
                 hostInfo.sshManager.connectSFTP();
@@ -468,7 +469,7 @@ public class ServerManagerScreen extends Screen {
                 hostInfo.isConnecting = false;
                 hostInfo.connectionError = "Failed to connect: " + ex.getMessage();
             }
-        }).start();
+        });
     }
 
     private List<ServerInfo> getCurrentServers() {
@@ -0,0 +1,190 @@
+package redxax.oxy.terminal;
+
+public final class CellStyle {
+    public static final long DEFAULT = 0L;
+    private static final long RGB_MASK = 0xFFFFFFL;
+    private static final int BG_SHIFT = 25;
+    private static final long FG_SET = 1L << 24;
+    private static final long BG_SET = 1L << 49;
+    public static final long BOLD = 1L << 50;
+    public static final long DIM = 1L << 51;
+    public static final long ITALIC = 1L << 52;
+    public static final long UNDERLINE = 1L << 53;
+    public static final long INVERSE = 1L << 54;
+    public static final long HIDDEN = 1L << 55;
+    public static final long STRIKETHROUGH = 1L << 56;
+    private static final long FG_BITS = RGB_MASK | FG_SET;
+    private static final long BG_BITS = (RGB_MASK << BG_SHIFT) | BG_SET;
+
+    private CellStyle() {
+    }
+
+    public static boolean hasForeground(long style) {
+        return (style & FG_SET) != 0;
+    }
+
+    public static boolean hasBackground(long style) {
+        return (style & BG_SET) != 0;
+    }
+
+    public static int foreground(long style) {
+        return (int) (style & RGB_MASK);
+    }
+
+    public static int background(long style) {
+        return (int) ((style >>> BG_SHIFT) & RGB_MASK);
+    }
+
+    public static boolean has(long style, long flag) {
+        return (style & flag) != 0;
+    }
+
+    public static long withForeground(long style, int rgb) {
+        return (style & ~FG_BITS) | (rgb & RGB_MASK) | FG_SET;
+    }
+
+    public static long withBackground(long style, int rgb) {
+        return (style & ~BG_BITS) | ((rgb & RGB_MASK) << BG_SHIFT) | BG_SET;
+    }
+
+    public static long backgroundOnly(long style) {
+        return style & BG_BITS;
+    }
+
+    public static long applySgr(long style, int[] params, int count, int subParams) {
+        if (count == 0) {
+            return DEFAULT;
+        }
+        for (int i = 0; i < count; i++) {
+            int p = params[i];
+            int end = i + 1;
+            while (end < count && (subParams & (1 << end)) != 0) {
+                end++;
+            }
+            if (end > i + 1) {
+                style = applySubParams(style, p, params, i + 1, end);
+                i = end - 1;
+                continue;
+            }
+            switch (p) {
+                case 0 -> style = DEFAULT;
+                case 1 -> style |= BOLD;
+                case 2 -> style |= DIM;
+                case 3 -> style |= ITALIC;
+                case 4 -> style |= UNDERLINE;
+                case 7 -> style |= INVERSE;
+                case 8 -> style |= HIDDEN;
+                case 9 -> style |= STRIKETHROUGH;
+                case 21, 22 -> style &= ~(BOLD | DIM);
+                case 23 -> style &= ~ITALIC;
+                case 24 -> style &= ~UNDERLINE;
+                case 27 -> style &= ~INVERSE;
+                case 28 -> style &= ~HIDDEN;
+                case 29 -> style &= ~STRIKETHROUGH;
+                case 39 -> style &= ~FG_BITS;
+                case 49 -> style &= ~BG_BITS;
+                case 38, 48 -> {
+                    int rgb = -1;
+                    if (i + 2 < count && params[i + 1] == 5) {
+                        rgb = paletteColor(params[i + 2]);
+                        i += 2;
+                    } else if (i + 4 < count && params[i + 1] == 2) {
+                        rgb = (Math.min(params[i + 2], 255) << 16) | (Math.min(params[i + 3], 255) << 8) | Math.min(params[i + 4], 255);
+                        i += 4;
+                    }
+                    if (rgb >= 0) {
+                        style = p == 38 ? withForeground(style, rgb) : withBackground(style, rgb);
+                    }
+                }
+                default -> {
+                    if (p >= 30 && p <= 37) {
+                        style = withForeground(style, paletteColor(p - 30));
+                    } else if (p >= 40 && p <= 47) {
+                        style = withBackground(style, paletteColor(p - 40));
+                    } else if (p >= 90 && p <= 97) {
+                        style = withForeground(style, paletteColor(p - 90 + 8));
+                    } else if (p >= 100 && p <= 107) {
+                        style = withBackground(style, paletteColor(p - 100 + 8));
+                    }
+                }
+            }
+        }
+        return style;
+    }
+
+    private static long applySubParams(long style, int p, int[] params, int from, int end) {
+        int length = end - from;
+        switch (p) {
+            case 4 -> style = params[from] == 0 ? style & ~UNDERLINE : style | UNDERLINE;
+            case 38, 48 -> {
+                int rgb = -1;
+                if (params[from] == 5 && length >= 2) {
+                    rgb = paletteColor(params[from + 1]);
+                } else if (params[from] == 2 && length >= 4) {
+                    rgb = (Math.min(params[end - 3], 255) << 16) | (Math.min(params[end - 2], 255) << 8) | Math.min(params[end - 1], 255);
+                }
+                if (rgb >= 0) {
+                    style = p == 38 ? withForeground(style, rgb) : withBackground(style, rgb);
+                }
+            }
+            default -> {
+            }
+        }
+        return style;
+    }
+
+    public static void appendSgr(long style, StringBuilder out) {
+        out.append("\u001B[0");
+        if (has(style, BOLD)) out.append(";1");
+        if (has(style, DIM)) out.append(";2");
+        if (has(style, ITALIC)) out.append(";3");
+        if (has(style, UNDERLINE)) out.append(";4");
+        if (has(style, INVERSE)) out.append(";7");
+        if (has(style, HIDDEN)) out.append(";8");
+        if (has(style, STRIKETHROUGH)) out.append(";9");
+        if (hasForeground(style)) {
+            int fg = foreground(style);
+            out.append(";38;2;").append(fg >> 16 & 0xFF).append(';').append(fg >> 8 & 0xFF).append(';').append(fg & 0xFF);
+        }
+        if (hasBackground(style)) {
+            int bg = background(style);
+            out.append(";48;2;").append(bg >> 16 & 0xFF).append(';').append(bg >> 8 & 0xFF).append(';').append(bg & 0xFF);
+        }
+        out.append('m');
+    }
+
+    public static int paletteColor(int index) {
+        if (index < 0 || index > 255) {
+            return 0xFFFFFF;
+        }
+        if (index < 16) {
+            return switch (index) {
+                case 0 -> 0x000000;
+                case 1 -> 0xAA0000;
+                case 2 -> 0x00AA00;
+                case 3 -> 0xAA5500;
+                case 4 -> 0x0000AA;
+                case 5 -> 0xAA00AA;
+                case 6 -> 0x00AAAA;
+                case 7 -> 0xAAAAAA;
+                case 8 -> 0x555555;
+                case 9 -> 0xFF5555;
+                case 10 -> 0x55FF55;
+                case 11 -> 0xFFFF55;
+                case 12 -> 0x5555FF;
+                case 13 -> 0xFF55FF;
+                case 14 -> 0x55FFFF;
+                default -> 0xFFFFFF;
+            };
+        } else if (index <= 231) {
+            index -= 16;
+            int r = (index / 36) % 6 * 51;
+            int g = (index / 6) % 6 * 51;
+            int b = index % 6 * 51;
+            return (r << 16) | (g << 8) | b;
+        } else {
+            int gray = 8 + (index - 232) * 10;
+            return (gray << 16) | (gray << 8) | gray;
+        }
+    }
+}
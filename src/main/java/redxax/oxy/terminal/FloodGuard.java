@@ -0,0 +1,173 @@
+package redxax.oxy.terminal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class FloodGuard {
+    public static final Path LOG_DIR = Paths.get(System.getProperty("user.dir"), "remotely", "flood");
+    public static final int DEFAULT_MAX_LINES_PER_SECOND = 5000;
+    private static final int SAMPLE_EVERY = 50;
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private final Path logPath;
+    private Writer log;
+    private boolean logFailed = false;
+    private int maxLinesPerSecond = DEFAULT_MAX_LINES_PER_SECOND;
+    private long windowStart = System.nanoTime();
+    private int windowLines = 0;
+    private long windowSuppressed = 0;
+    private long pendingReport = 0;
+    private long totalSuppressed = 0;
+    private long pendingShed = 0;
+    private long totalShed = 0;
+
+    public FloodGuard(Path logPath) {
+        this.logPath = logPath;
+    }
+
+    public synchronized boolean admit(String line) {
+        long now = System.nanoTime();
+        if (now - windowStart >= WINDOW_NANOS) {
+            pendingReport += windowSuppressed;
+            windowSuppressed = 0;
+            windowLines = 0;
+            windowStart = now;
+            flushLog();
+        }
+        windowLines++;
+        if (maxLinesPerSecond <= 0 || windowLines <= maxLinesPerSecond) {
+            return true;
+        }
+        writeLog(line);
+        if ((windowLines - maxLinesPerSecond) % SAMPLE_EVERY == 0) {
+            return true;
+        }
+        windowSuppressed++;
+        totalSuppressed++;
+        return false;
+    }
+
+    public synchronized long takeReport() {
+        if (pendingReport == 0 && windowSuppressed > 0 && System.nanoTime() - windowStart >= WINDOW_NANOS) {
+            pendingReport = windowSuppressed;
+            windowSuppressed = 0;
+            flushLog();
+        }
+        long report = pendingReport;
+        pendingReport = 0;
+        return report;
+    }
+
+    public synchronized void shed(String text) {
+        long lines = 0;
+        int start = 0;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', start)) {
+            writeLog(text.substring(start, i));
+            start = i + 1;
+            lines++;
+        }
+        if (start < text.length()) {
+            writeLog(text.substring(start));
+            lines++;
+        }
+        pendingShed += lines;
+        totalShed += lines;
+    }
+
+    public synchronized long takeShedReport() {
+        if (pendingShed > 0) {
+            flushLog();
+        }
+        long report = pendingShed;
+        pendingShed = 0;
+        return report;
+    }
+
+    public synchronized long getTotalShed() {
+        return totalShed;
+    }
+
+    public int getMaxLinesPerSecond() {
+        return maxLinesPerSecond;
+    }
+
+    public void setMaxLinesPerSecond(int maxLinesPerSecond) {
+        this.maxLinesPerSecond = Math.max(0, maxLinesPerSecond);
+    }
+
+    public synchronized long getTotalSuppressed() {
+        return totalSuppressed;
+    }
+
+    public Path getLogPath() {
+        return logPath;
+    }
+
+    public synchronized void close() {
+        if (log != null) {
+            try {
+                log.close();
+            } catch (IOException ignored) {
+            }
+            log = null;
+        }
+    }
+
+    private void writeLog(String line) {
+        if (logFailed) {
+            return;
+        }
+        try {
+            if (log == null) {
+                Files.createDirectories(logPath.getParent());
+                log = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            log.write(VtParser.strip(line));
+            log.write('\n');
+        } catch (IOException e) {
+            logFailed = true;
+            System.err.println("Failed to write flood log " + logPath + ": " + e.getMessage());
+        }
+    }
+
+    private void flushLog() {
+        if (log != null) {
+            try {
+                log.flush();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public static boolean sameIgnoringNumbers(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (isDigit(ca) && isDigit(cb)) {
+                while (i < a.length() && isDigit(a.charAt(i))) {
+                    i++;
+                }
+                while (j < b.length() && isDigit(b.charAt(j))) {
+                    j++;
+                }
+                continue;
+            }
+            if (ca != cb) {
+                return false;
+            }
+            i++;
+            j++;
+        }
+        return i == a.length() && j == b.length();
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,65 @@
+package redxax.oxy.terminal;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+public class GlyphWidthTable {
+    private static final int UNKNOWN = -1;
+    private final int[] advances = new int[0x10000];
+    private final IntUnaryOperator measure;
+
+    public GlyphWidthTable(IntUnaryOperator measure) {
+        this.measure = measure;
+        Arrays.fill(advances, UNKNOWN);
+    }
+
+    public int width(char c) {
+        int advance = advances[c];
+        if (advance == UNKNOWN) {
+            advance = Math.max(0, measure.applyAsInt(c));
+            advances[c] = advance;
+        }
+        return advance;
+    }
+
+    public int[] prefixWidths(CharSequence text) {
+        int[] prefix = new int[text.length() + 1];
+        for (int i = 0; i < text.length(); i++) {
+            prefix[i + 1] = prefix[i] + width(text.charAt(i));
+        }
+        return prefix;
+    }
+
+    public void clear() {
+        Arrays.fill(advances, UNKNOWN);
+    }
+
+    public static int fit(int[] prefix, int from, int maxWidth) {
+        int limit = prefix[from] + maxWidth;
+        int low = from;
+        int high = prefix.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (prefix[mid] <= limit) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    public static int indexAt(int[] prefix, double x) {
+        int low = 0;
+        int high = prefix.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if ((prefix[mid] + prefix[mid + 1]) / 2.0 > x) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
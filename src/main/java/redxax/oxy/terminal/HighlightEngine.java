@@ -0,0 +1,378 @@
+package redxax.oxy.terminal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class HighlightEngine {
+    private static final int[] NO_OUTPUTS = new int[0];
+    private final List<HighlightRule> rules;
+    private char[][] keys;
+    private int[][] targets;
+    private int[] fail;
+    private int[][] outputs;
+    private final String[] patterns;
+    private final int[] patternRule;
+    private final int[] ruleColor;
+    private int tagColor = -1;
+    private int ipColor = -1;
+    private int uuidColor = -1;
+    private int coordinateColor = -1;
+    private int[] matchStart = new int[16];
+    private int[] matchEnd = new int[16];
+    private int[] matchColor = new int[16];
+    private int matchCount;
+
+    public HighlightEngine(List<HighlightRule> rules) {
+        this.rules = List.copyOf(rules);
+        this.ruleColor = new int[this.rules.size()];
+        List<String> patternList = new ArrayList<>();
+        List<Integer> ruleList = new ArrayList<>();
+        for (int r = 0; r < this.rules.size(); r++) {
+            HighlightRule rule = this.rules.get(r);
+            ruleColor[r] = rule.rgb();
+            String type = rule.type() == null ? HighlightRule.KEYWORD : rule.type().toLowerCase();
+            switch (type) {
+                case HighlightRule.TAG -> tagColor = tagColor < 0 ? ruleColor[r] : tagColor;
+                case HighlightRule.IPV4 -> ipColor = ipColor < 0 ? ruleColor[r] : ipColor;
+                case HighlightRule.UUID -> uuidColor = uuidColor < 0 ? ruleColor[r] : uuidColor;
+                case HighlightRule.COORDINATES -> coordinateColor = coordinateColor < 0 ? ruleColor[r] : coordinateColor;
+                default -> {
+                    if (rule.patterns() != null) {
+                        for (String pattern : rule.patterns()) {
+                            if (pattern != null && !pattern.isEmpty()) {
+                                patternList.add(pattern);
+                                ruleList.add(r);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        this.patterns = patternList.toArray(new String[0]);
+        this.patternRule = ruleList.stream().mapToInt(Integer::intValue).toArray();
+        buildAutomaton();
+    }
+
+    public List<HighlightRule> getRules() {
+        return rules;
+    }
+
+    public int getPatternCount() {
+        return patterns.length;
+    }
+
+    public synchronized int highlight(String text, long[] styles) {
+        matchCount = 0;
+        int length = text.length();
+        boolean structural = tagColor >= 0 || ipColor >= 0 || uuidColor >= 0 || coordinateColor >= 0;
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (structural && (i == 0 || !isWordChar(text.charAt(i - 1)))) {
+                matchStructural(text, i, c);
+            }
+            state = step(state, Character.toLowerCase(c));
+            for (int p : outputs[state]) {
+                String pattern = patterns[p];
+                int start = i - pattern.length() + 1;
+                HighlightRule rule = rules.get(patternRule[p]);
+                if (!rule.ignoreCase() && !text.regionMatches(start, pattern, 0, pattern.length())) {
+                    continue;
+                }
+                if (rule.wholeWord() && ((start > 0 && isWordChar(text.charAt(start - 1))) || (i + 1 < length && isWordChar(text.charAt(i + 1))))) {
+                    continue;
+                }
+                int end = i + 1;
+                if (rule.bracket()) {
+                    int open = start - 1;
+                    while (open >= 0 && text.charAt(open) != '[' && text.charAt(open) != ']') {
+                        open--;
+                    }
+                    int close = end;
+                    while (close < length && text.charAt(close) != ']' && text.charAt(close) != '[') {
+                        close++;
+                    }
+                    if (open < 0 || close >= length || text.charAt(open) != '[' || text.charAt(close) != ']') {
+                        continue;
+                    }
+                    start = open;
+                    end = close + 1;
+                }
+                addMatch(start, end, ruleColor[patternRule[p]]);
+            }
+        }
+        return applyMatches(styles);
+    }
+
+    private void matchStructural(String text, int i, char c) {
+        int end;
+        if (c == '[' && tagColor >= 0 && (end = matchTag(text, i)) > 0) {
+            addMatch(i, end, tagColor);
+        }
+        if (uuidColor >= 0 && isHexDigit(c) && (end = matchUuid(text, i)) > 0) {
+            addMatch(i, end, uuidColor);
+        }
+        if (ipColor >= 0 && isDigit(c) && (end = matchIpv4(text, i)) > 0) {
+            addMatch(i, end, ipColor);
+        }
+        if (coordinateColor >= 0 && (isDigit(c) || c == '-') && (end = matchCoordinates(text, i)) > 0) {
+            addMatch(i, end, coordinateColor);
+        }
+    }
+
+    private int applyMatches(long[] styles) {
+        for (int i = 1; i < matchCount; i++) {
+            int start = matchStart[i];
+            int end = matchEnd[i];
+            int color = matchColor[i];
+            int j = i - 1;
+            while (j >= 0 && (matchStart[j] > start || (matchStart[j] == start && matchEnd[j] < end))) {
+                matchStart[j + 1] = matchStart[j];
+                matchEnd[j + 1] = matchEnd[j];
+                matchColor[j + 1] = matchColor[j];
+                j--;
+            }
+            matchStart[j + 1] = start;
+            matchEnd[j + 1] = end;
+            matchColor[j + 1] = color;
+        }
+        int applied = 0;
+        int covered = 0;
+        for (int i = 0; i < matchCount; i++) {
+            if (matchStart[i] < covered) {
+                continue;
+            }
+            for (int k = matchStart[i]; k < matchEnd[i]; k++) {
+                styles[k] = CellStyle.withForeground(styles[k], matchColor[i]);
+            }
+            covered = matchEnd[i];
+            applied++;
+        }
+        return applied;
+    }
+
+    private void addMatch(int start, int end, int color) {
+        if (matchCount == matchStart.length) {
+            matchStart = Arrays.copyOf(matchStart, matchCount * 2);
+            matchEnd = Arrays.copyOf(matchEnd, matchCount * 2);
+            matchColor = Arrays.copyOf(matchColor, matchCount * 2);
+        }
+        matchStart[matchCount] = start;
+        matchEnd[matchCount] = end;
+        matchColor[matchCount] = color;
+        matchCount++;
+    }
+
+    private int step(int state, char c) {
+        while (true) {
+            char[] stateKeys = keys[state];
+            int index = Arrays.binarySearch(stateKeys, c);
+            if (index >= 0) {
+                return targets[state][index];
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fail[state];
+        }
+    }
+
+    private void buildAutomaton() {
+        List<Map<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> found = new ArrayList<>();
+        trie.add(new HashMap<>());
+        found.add(new ArrayList<>());
+        for (int p = 0; p < patterns.length; p++) {
+            int state = 0;
+            for (int i = 0; i < patterns[p].length(); i++) {
+                char c = Character.toLowerCase(patterns[p].charAt(i));
+                Integer next = trie.get(state).get(c);
+                if (next == null) {
+                    next = trie.size();
+                    trie.get(state).put(c, next);
+                    trie.add(new HashMap<>());
+                    found.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            found.get(state).add(p);
+        }
+        int states = trie.size();
+        keys = new char[states][];
+        targets = new int[states][];
+        fail = new int[states];
+        outputs = new int[states][];
+        for (int s = 0; s < states; s++) {
+            Character[] sorted = trie.get(s).keySet().toArray(new Character[0]);
+            Arrays.sort(sorted);
+            keys[s] = new char[sorted.length];
+            targets[s] = new int[sorted.length];
+            for (int k = 0; k < sorted.length; k++) {
+                keys[s][k] = sorted[k];
+                targets[s][k] = trie.get(s).get(sorted[k]);
+            }
+        }
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        outputs[0] = NO_OUTPUTS;
+        for (int child : targets[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int s = queue.poll();
+            List<Integer> own = found.get(s);
+            int[] inherited = outputs[fail[s]];
+            if (own.isEmpty()) {
+                outputs[s] = inherited;
+            } else {
+                int[] merged = new int[own.size() + inherited.length];
+                for (int k = 0; k < own.size(); k++) {
+                    merged[k] = own.get(k);
+                }
+                System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+                outputs[s] = merged;
+            }
+            for (int k = 0; k < keys[s].length; k++) {
+                int child = targets[s][k];
+                fail[child] = s == 0 ? 0 : step(fail[s], keys[s][k]);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static int matchTag(String text, int i) {
+        int j = i + 1;
+        if (j >= text.length() || !Character.isLetter(text.charAt(j))) {
+            return -1;
+        }
+        while (j < text.length() && j - i <= 32) {
+            char c = text.charAt(j);
+            if (c == ']') {
+                return j + 1;
+            }
+            if (!isWordChar(c) && c != '-') {
+                return -1;
+            }
+            j++;
+        }
+        return -1;
+    }
+
+    private static int matchUuid(String text, int i) {
+        int end = i + 36;
+        if (end > text.length() || (end < text.length() && isWordChar(text.charAt(end)))) {
+            return -1;
+        }
+        for (int k = 0; k < 36; k++) {
+            char c = text.charAt(i + k);
+            if (k == 8 || k == 13 || k == 18 || k == 23 ? c != '-' : !isHexDigit(c)) {
+                return -1;
+            }
+        }
+        return end;
+    }
+
+    private static int matchIpv4(String text, int i) {
+        int j = i;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (j >= text.length() || text.charAt(j) != '.') {
+                    return -1;
+                }
+                j++;
+            }
+            int value = 0;
+            int digits = 0;
+            while (j < text.length() && isDigit(text.charAt(j)) && digits < 4) {
+                value = value * 10 + text.charAt(j) - '0';
+                digits++;
+                j++;
+            }
+            if (digits == 0 || digits > 3 || value > 255) {
+                return -1;
+            }
+        }
+        if (j + 1 < text.length() && text.charAt(j) == ':' && isDigit(text.charAt(j + 1))) {
+            int portEnd = j + 1;
+            while (portEnd < text.length() && isDigit(text.charAt(portEnd)) && portEnd - j <= 5) {
+                portEnd++;
+            }
+            j = portEnd;
+        }
+        if (j < text.length() && (isWordChar(text.charAt(j)) || (text.charAt(j) == '.' && j + 1 < text.length() && isDigit(text.charAt(j + 1))))) {
+            return -1;
+        }
+        return j;
+    }
+
+    private static int matchCoordinates(String text, int i) {
+        int j = matchNumber(text, i);
+        for (int axis = 1; axis < 3 && j > 0; axis++) {
+            while (j < text.length() && text.charAt(j) == ' ') {
+                j++;
+            }
+            if (j >= text.length() || text.charAt(j) != ',') {
+                return -1;
+            }
+            j++;
+            while (j < text.length() && text.charAt(j) == ' ') {
+                j++;
+            }
+            j = matchNumber(text, j);
+        }
+        if (j < 0 || (j < text.length() && isWordChar(text.charAt(j)))) {
+            return -1;
+        }
+        return j;
+    }
+
+    private static int matchNumber(String text, int i) {
+        int j = i;
+        if (j < text.length() && text.charAt(j) == '-') {
+            j++;
+        }
+        int digitsStart = j;
+        while (j < text.length() && isDigit(text.charAt(j))) {
+            j++;
+        }
+        if (j == digitsStart) {
+            return -1;
+        }
+        if (j + 1 < text.length() && text.charAt(j) == '.' && isDigit(text.charAt(j + 1))) {
+            j++;
+            while (j < text.length() && isDigit(text.charAt(j))) {
+                j++;
+            }
+        }
+        return j;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    public static List<HighlightRule> defaultRules() {
+        return List.of(
+                new HighlightRule("errors", HighlightRule.KEYWORD, List.of("ERROR", "SEVERE", "FATAL"), "#FF0000", false, true, true),
+                new HighlightRule("warnings", HighlightRule.KEYWORD, List.of("WARNING", "WARN"), "#FFA500", false, true, true),
+                new HighlightRule("info", HighlightRule.KEYWORD, List.of("INFO"), "#00FF00", false, true, true),
+                new HighlightRule("players", HighlightRule.KEYWORD, List.of(), "#55FFFF", true, true, false),
+                new HighlightRule("plugin tags", HighlightRule.TAG, List.of(), "#AA88FF", false, false, false),
+                new HighlightRule("addresses", HighlightRule.IPV4, List.of(), "#FFAA00", false, false, false),
+                new HighlightRule("uuids", HighlightRule.UUID, List.of(), "#8888AA", false, false, false),
+                new HighlightRule("coordinates", HighlightRule.COORDINATES, List.of(), "#FFFF55", false, false, false)
+        );
+    }
+}
@@ -0,0 +1,23 @@
+package redxax.oxy.terminal;
+
+import java.util.List;
+
+public record HighlightRule(String name, String type, List<String> patterns, String color, boolean ignoreCase, boolean wholeWord, boolean bracket) {
+    public static final String KEYWORD = "keyword";
+    public static final String TAG = "tag";
+    public static final String IPV4 = "ipv4";
+    public static final String UUID = "uuid";
+    public static final String COORDINATES = "coordinates";
+
+    public int rgb() {
+        if (color == null || color.isEmpty()) {
+            return 0xFFFFFF;
+        }
+        String hex = color.startsWith("#") ? color.substring(1) : color;
+        try {
+            return Integer.parseInt(hex, 16) & 0xFFFFFF;
+        } catch (NumberFormatException e) {
+            return 0xFFFFFF;
+        }
+    }
+}
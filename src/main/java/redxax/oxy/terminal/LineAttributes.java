@@ -0,0 +1,244 @@
+package redxax.oxy.terminal;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class LineAttributes {
+    private byte[] levels = new byte[1024];
+    private short[] loggers = new short[1024];
+    private long[] times = new long[1024];
+    private long base = 0;
+    private int size = 0;
+    private final TreeMap<Long, Integer> repeats = new TreeMap<>();
+    private final TreeMap<Long, Integer> traces = new TreeMap<>();
+    private int filterMinLevel = LineClassifier.NONE;
+    private int filterLogger = -1;
+    private long[] matches = new long[0];
+    private int matchStart = 0;
+    private int matchEnd = 0;
+
+    public void set(long index, int level, int logger) {
+        if (index < base) {
+            return;
+        }
+        int offset = ensure(index);
+        levels[offset] = (byte) level;
+        loggers[offset] = (short) logger;
+        if (isFiltering()) {
+            updateMatch(index, accepts(level, logger));
+        }
+    }
+
+    public void setFilter(int minLevel, int logger) {
+        filterMinLevel = minLevel;
+        filterLogger = logger;
+        matchStart = 0;
+        matchEnd = 0;
+        if (!isFiltering()) {
+            matches = new long[0];
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            if (accepts(levels[i], loggers[i] & 0xFFFF)) {
+                appendMatch(base + i);
+            }
+        }
+    }
+
+    public boolean isFiltering() {
+        return filterMinLevel > LineClassifier.NONE || filterLogger >= 0;
+    }
+
+    public boolean matchesFilter(long index) {
+        return accepts(level(index), logger(index));
+    }
+
+    public long previousMatch(long index) {
+        int slot = search(index) - 1;
+        return slot >= matchStart ? matches[slot] : -1;
+    }
+
+    public long nextMatch(long index) {
+        int slot = search(index + 1);
+        return slot < matchEnd ? matches[slot] : Long.MAX_VALUE;
+    }
+
+    public void stamp(long index, long time) {
+        if (index >= base) {
+            times[ensure(index)] = time;
+        }
+    }
+
+    public long time(long index) {
+        return index < base || index >= base + size ? 0 : times[(int) (index - base)];
+    }
+
+    public long findTime(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (times[mid] < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return base + low;
+    }
+
+    public int level(long index) {
+        return index < base || index >= base + size ? 0 : levels[(int) (index - base)];
+    }
+
+    public int logger(long index) {
+        return index < base || index >= base + size ? 0 : loggers[(int) (index - base)] & 0xFFFF;
+    }
+
+    public int repeats(long index) {
+        if (repeats.isEmpty()) {
+            return 1;
+        }
+        return repeats.getOrDefault(index, 1);
+    }
+
+    public void addRepeat(long index) {
+        repeats.merge(index, 2, (count, ignored) -> count + 1);
+    }
+
+    public void clearRepeat(long index) {
+        repeats.remove(index);
+    }
+
+    public void setTrace(long headerIndex, int frames) {
+        traces.put(headerIndex, frames);
+    }
+
+    public int traceFrames(long index) {
+        if (traces.isEmpty()) {
+            return 0;
+        }
+        return traces.getOrDefault(index, 0);
+    }
+
+    public long traceHeader(long index) {
+        if (traces.isEmpty()) {
+            return -1;
+        }
+        Map.Entry<Long, Integer> entry = traces.lowerEntry(index);
+        return entry != null && index <= entry.getKey() + entry.getValue() ? entry.getKey() : -1;
+    }
+
+    public void trim(long firstIndex) {
+        if (!repeats.isEmpty() && repeats.firstKey() < firstIndex) {
+            repeats.headMap(firstIndex).clear();
+        }
+        if (!traces.isEmpty() && traces.firstKey() < firstIndex) {
+            traces.headMap(firstIndex).clear();
+        }
+        while (matchStart < matchEnd && matches[matchStart] < firstIndex) {
+            matchStart++;
+        }
+        long drop = firstIndex - base;
+        if (drop <= 0) {
+            return;
+        }
+        if (drop >= size) {
+            base = firstIndex;
+            size = 0;
+        } else if (drop >= levels.length / 2) {
+            System.arraycopy(levels, (int) drop, levels, 0, size - (int) drop);
+            System.arraycopy(loggers, (int) drop, loggers, 0, size - (int) drop);
+            System.arraycopy(times, (int) drop, times, 0, size - (int) drop);
+            base = firstIndex;
+            size -= (int) drop;
+        }
+    }
+
+    public void reset(long start) {
+        base = start;
+        size = 0;
+        repeats.clear();
+        traces.clear();
+        matchStart = 0;
+        matchEnd = 0;
+    }
+
+    public long retainedBytes() {
+        return (long) levels.length * 11 + (long) matches.length * Long.BYTES;
+    }
+
+    private boolean accepts(int level, int logger) {
+        return (filterMinLevel <= LineClassifier.NONE || level >= filterMinLevel) && (filterLogger < 0 || logger == filterLogger);
+    }
+
+    private int search(long index) {
+        int low = matchStart;
+        int high = matchEnd;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (matches[mid] < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void updateMatch(long index, boolean matching) {
+        int slot = search(index);
+        boolean present = slot < matchEnd && matches[slot] == index;
+        if (matching == present) {
+            return;
+        }
+        if (!matching) {
+            System.arraycopy(matches, slot + 1, matches, slot, matchEnd - 1 - slot);
+            matchEnd--;
+            return;
+        }
+        if (matchEnd == matches.length) {
+            growMatches();
+            slot = search(index);
+        }
+        System.arraycopy(matches, slot, matches, slot + 1, matchEnd - slot);
+        matches[slot] = index;
+        matchEnd++;
+    }
+
+    private void appendMatch(long index) {
+        if (matchEnd == matches.length) {
+            growMatches();
+        }
+        matches[matchEnd++] = index;
+    }
+
+    private void growMatches() {
+        if (matchStart > 0 && matchStart >= matches.length / 2) {
+            System.arraycopy(matches, matchStart, matches, 0, matchEnd - matchStart);
+            matchEnd -= matchStart;
+            matchStart = 0;
+        } else {
+            matches = Arrays.copyOf(matches, Math.max(256, matches.length * 2));
+        }
+    }
+
+    private int ensure(long index) {
+        long offset = index - base;
+        if (offset >= size) {
+            int needed = (int) offset + 1;
+            if (needed > levels.length) {
+                int capacity = Math.max(needed, levels.length * 2);
+                levels = Arrays.copyOf(levels, capacity);
+                loggers = Arrays.copyOf(loggers, capacity);
+                times = Arrays.copyOf(times, capacity);
+            }
+            Arrays.fill(levels, size, needed, (byte) 0);
+            Arrays.fill(loggers, size, needed, (short) 0);
+            Arrays.fill(times, size, needed, 0L);
+            size = needed;
+        }
+        return (int) offset;
+    }
+}
@@ -0,0 +1,171 @@
+package redxax.oxy.terminal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LineClassifier {
+    public static final int NONE = 0;
+    public static final int TRACE = 1;
+    public static final int DEBUG = 2;
+    public static final int INFO = 3;
+    public static final int WARN = 4;
+    public static final int ERROR = 5;
+    public static final int FATAL = 6;
+    public static final int UNCLASSIFIED = -1;
+    private static final String[] LEVEL_NAMES = {"ALL", "TRACE", "DEBUG", "INFO", "WARN", "ERROR", "FATAL"};
+    private static final int PREFIX_LIMIT = 160;
+    private static final int MAX_LOGGER_LENGTH = 48;
+    private final char[] prefix = new char[PREFIX_LIMIT];
+    private final Map<String, Integer> loggerIds = new HashMap<>();
+    private final List<String> loggerNames = new ArrayList<>(List.of(""));
+
+    public int classify(String line) {
+        int length = extractPrefix(line);
+        int pos = skipSpaces(0, length);
+        int level = NONE;
+        int levelEnd = -1;
+        for (int group = 0; group < 2 && pos < length && prefix[pos] == '['; group++) {
+            int close = indexOf(']', pos + 1, length);
+            if (close < 0) {
+                break;
+            }
+            int tokenStart = close;
+            while (tokenStart > pos + 1 && prefix[tokenStart - 1] != ' ' && prefix[tokenStart - 1] != '/') {
+                tokenStart--;
+            }
+            level = parseLevel(new String(prefix, tokenStart, close - tokenStart));
+            pos = skipSpaces(close + 1, length);
+            if (level != NONE) {
+                levelEnd = pos;
+                break;
+            }
+        }
+        if (level == NONE) {
+            int colon = indexOf(':', 0, Math.min(length, 8));
+            if (colon > 0) {
+                level = parseLevel(new String(prefix, 0, colon));
+                levelEnd = colon + 1;
+            }
+        }
+        if (level == NONE) {
+            return UNCLASSIFIED;
+        }
+        pos = levelEnd;
+        if (pos < length && prefix[pos] == ':') {
+            pos++;
+        }
+        pos = skipSpaces(pos, length);
+        int logger = 0;
+        if (pos < length && prefix[pos] == '[') {
+            int close = indexOf(']', pos + 1, Math.min(length, pos + 1 + MAX_LOGGER_LENGTH));
+            if (close > pos + 1) {
+                logger = internLogger(new String(prefix, pos + 1, close - pos - 1));
+            }
+        }
+        return (level << 16) | logger;
+    }
+
+    public static int level(int classification) {
+        return classification >>> 16;
+    }
+
+    public static int logger(int classification) {
+        return classification & 0xFFFF;
+    }
+
+    public String loggerName(int id) {
+        return id >= 0 && id < loggerNames.size() ? loggerNames.get(id) : "";
+    }
+
+    public int findLogger(String name) {
+        for (int i = 1; i < loggerNames.size(); i++) {
+            if (loggerNames.get(i).equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public List<String> getLoggers() {
+        return loggerNames.subList(1, loggerNames.size());
+    }
+
+    public void reset() {
+        loggerIds.clear();
+        loggerNames.subList(1, loggerNames.size()).clear();
+    }
+
+    public static int parseLevel(String name) {
+        return switch (name.toUpperCase()) {
+            case "TRACE", "FINEST", "FINER" -> TRACE;
+            case "DEBUG", "FINE" -> DEBUG;
+            case "INFO" -> INFO;
+            case "WARN", "WARNING" -> WARN;
+            case "ERROR", "SEVERE" -> ERROR;
+            case "FATAL" -> FATAL;
+            default -> NONE;
+        };
+    }
+
+    public static String levelName(int level) {
+        return level >= 0 && level < LEVEL_NAMES.length ? LEVEL_NAMES[level] : LEVEL_NAMES[0];
+    }
+
+    private int internLogger(String name) {
+        Integer id = loggerIds.get(name);
+        if (id == null) {
+            if (loggerNames.size() > 0xFFFF) {
+                return 0;
+            }
+            id = loggerNames.size();
+            loggerIds.put(name, id);
+            loggerNames.add(name);
+        }
+        return id;
+    }
+
+    private int extractPrefix(String line) {
+        int length = 0;
+        int i = 0;
+        while (i < line.length() && length < PREFIX_LIMIT) {
+            char c = line.charAt(i++);
+            if (c == 0x1B && i < line.length()) {
+                char kind = line.charAt(i++);
+                if (kind == '[') {
+                    while (i < line.length() && (line.charAt(i) < 0x40 || line.charAt(i) > 0x7E)) {
+                        i++;
+                    }
+                    i++;
+                } else if (kind == ']') {
+                    while (i < line.length() && line.charAt(i) != 0x07 && line.charAt(i) != 0x1B) {
+                        i++;
+                    }
+                    i++;
+                }
+            } else if (c == '\t') {
+                prefix[length++] = ' ';
+            } else if (c >= 0x20) {
+                prefix[length++] = c;
+            }
+        }
+        return length;
+    }
+
+    private int indexOf(char target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (prefix[i] == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int skipSpaces(int pos, int length) {
+        while (pos < length && prefix[pos] == ' ') {
+            pos++;
+        }
+        return pos;
+    }
+}
@@ -0,0 +1,95 @@
+package redxax.oxy.terminal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LinkDetector {
+    public static final int URL = 0;
+    public static final int PATH = 1;
+    private static final Pattern URL_PATTERN = Pattern.compile("\\bhttps?://[^\\s<>\"'`]+");
+    private static final Pattern PATH_PATTERN = Pattern.compile(
+            "(?<![\\w/\\\\.:-])((?:[A-Za-z]:[/\\\\]|~/|\\.{1,2}/|/)?(?:[\\w.-]+[/\\\\])+[\\w.-]*\\w|[\\w$-]+\\.[A-Za-z]\\w{0,9}(?=:\\d))(?::(\\d+))?");
+
+    public record Link(int start, int end, int kind, String target, int line) {
+        public boolean contains(int index) {
+            return index >= start && index < end;
+        }
+    }
+
+    public static List<Link> detect(String text) {
+        if (text.indexOf('/') < 0 && text.indexOf('\\') < 0 && text.indexOf(':') < 0) {
+            return Collections.emptyList();
+        }
+        List<Link> links = new ArrayList<>(2);
+        Matcher url = URL_PATTERN.matcher(text);
+        while (url.find()) {
+            int end = trimTrailing(text, url.start(), url.end());
+            links.add(new Link(url.start(), end, URL, text.substring(url.start(), end), 0));
+        }
+        Matcher path = PATH_PATTERN.matcher(text);
+        while (path.find()) {
+            if (overlaps(links, path.start(), path.end())) {
+                continue;
+            }
+            String target = path.group(1);
+            if (target.length() < 3 || !(isRooted(target) || hasExtension(target))) {
+                continue;
+            }
+            int line = 0;
+            if (path.group(2) != null) {
+                try {
+                    line = Integer.parseInt(path.group(2));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+            links.add(new Link(path.start(), path.end(), PATH, target, line));
+        }
+        return links;
+    }
+
+    public static Link find(List<Link> links, int index) {
+        for (Link link : links) {
+            if (link.contains(index)) {
+                return link;
+            }
+        }
+        return null;
+    }
+
+    private static boolean overlaps(List<Link> links, int start, int end) {
+        for (Link link : links) {
+            if (start < link.end && end > link.start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isRooted(String path) {
+        return path.startsWith("/") || path.startsWith("./") || path.startsWith("../") || path.startsWith("~/")
+                || (path.length() > 2 && path.charAt(1) == ':' && (path.charAt(2) == '\\' || path.charAt(2) == '/'));
+    }
+
+    private static boolean hasExtension(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot > Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\')) + 1 && dot < path.length() - 1
+                && Character.isLetter(path.charAt(dot + 1));
+    }
+
+    private static int trimTrailing(String text, int start, int end) {
+        while (end > start) {
+            char c = text.charAt(end - 1);
+            if (c == '.' || c == ',' || c == ';' || c == ':' || c == '!' || c == '?' || c == ']' || c == '}') {
+                end--;
+            } else if (c == ')' && text.lastIndexOf('(', end - 1) < start) {
+                end--;
+            } else {
+                break;
+            }
+        }
+        return end;
+    }
+}
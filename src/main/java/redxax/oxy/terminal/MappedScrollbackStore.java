@@ -0,0 +1,409 @@
+package redxax.oxy.terminal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Arrays;
+
+public class MappedScrollbackStore implements ScrollbackStore {
+    public static final Path SEGMENT_DIR = Paths.get(System.getProperty("user.dir"), "remotely", "scrollback");
+    private static final long MAP_WINDOW_BYTES = 4L * 1024 * 1024;
+    private static final int READ_BLOCK_BYTES = 256 * 1024;
+    private static final byte NEWLINE = '\n';
+
+    private final Path segmentPath;
+    private FileChannel channel;
+    private long[] lineOffsets = new long[1024];
+    private int size = 0;
+    private long firstIndex = 0;
+    private long writePosition = 0;
+    private MappedByteBuffer mappedWindow;
+    private long mappedWindowStart = -1;
+    private boolean closed = false;
+    private long version = 0;
+    private long rewrites = 0;
+    private ScrollbackBuffer fallback;
+    private IOException failure;
+
+    public MappedScrollbackStore() throws IOException {
+        this(SEGMENT_DIR);
+    }
+
+    public MappedScrollbackStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.segmentPath = Files.createTempFile(directory, "scrollback-", ".seg");
+        this.channel = openSegment(segmentPath);
+    }
+
+    @Override
+    public synchronized void append(String line) {
+        if (closed) {
+            return;
+        }
+        if (fallback != null) {
+            fallback.append(line);
+            return;
+        }
+        if (size == lineOffsets.length) {
+            lineOffsets = Arrays.copyOf(lineOffsets, lineOffsets.length * 2);
+        }
+        long start = writePosition;
+        try {
+            if (size > 0) {
+                writeFully(ByteBuffer.wrap(new byte[]{NEWLINE}));
+            }
+            lineOffsets[size] = writePosition;
+            writeFully(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            size++;
+            version++;
+        } catch (IOException e) {
+            writePosition = start;
+            fallBack(e, size);
+            fallback.append(line);
+        }
+    }
+
+    @Override
+    public synchronized void replaceLast(String line) {
+        if (closed) {
+            return;
+        }
+        if (fallback != null) {
+            fallback.replaceLast(line);
+            return;
+        }
+        if (size == 0) {
+            append(line);
+            return;
+        }
+        long start = writePosition;
+        try {
+            channel.truncate(lineOffsets[size - 1]);
+            writePosition = lineOffsets[size - 1];
+            rewrites++;
+            if (mappedWindow != null && writePosition < mappedWindowStart + mappedWindow.limit()) {
+                invalidateWindow();
+            }
+            writeFully(ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8)));
+            version++;
+        } catch (IOException e) {
+            writePosition = Math.min(start, lineOffsets[size - 1]);
+            fallBack(e, size - 1);
+            fallback.append(line);
+        }
+    }
+
+    @Override
+    public synchronized String get(long index) {
+        if (fallback != null) {
+            return fallback.get(index);
+        }
+        if (closed || index < firstIndex || index >= firstIndex + size) {
+            return null;
+        }
+        int local = (int) (index - firstIndex);
+        long start = lineOffsets[local];
+        int length = (int) (lineEnd(local) - start);
+        if (length <= 0) {
+            return "";
+        }
+        try {
+            byte[] bytes = new byte[length];
+            MappedByteBuffer window = mapWindow(start, length);
+            if (window != null) {
+                window.get((int) (start - mappedWindowStart), bytes);
+            } else {
+                readFully(ByteBuffer.wrap(bytes), start);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public LineReader bulkReader() {
+        return new BlockReader();
+    }
+
+    @Override
+    public synchronized String last() {
+        if (fallback != null) {
+            return fallback.last();
+        }
+        return size == 0 ? null : get(firstIndex + size - 1);
+    }
+
+    @Override
+    public synchronized long firstIndex() {
+        return fallback != null ? fallback.firstIndex() : firstIndex;
+    }
+
+    @Override
+    public synchronized long endIndex() {
+        return fallback != null ? fallback.endIndex() : firstIndex + size;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return fallback != null ? fallback.isEmpty() : size == 0;
+    }
+
+    @Override
+    public synchronized long version() {
+        return fallback != null ? version + fallback.version() : version;
+    }
+
+    @Override
+    public synchronized long retainedBytes() {
+        return fallback != null ? fallback.retainedBytes() : (long) lineOffsets.length * Long.BYTES;
+    }
+
+    @Override
+    public synchronized long heapBytes() {
+        return fallback != null ? fallback.heapBytes() : retainedBytes();
+    }
+
+    @Override
+    public long compressCold() {
+        ScrollbackBuffer heap;
+        synchronized (this) {
+            heap = fallback;
+        }
+        return heap != null ? heap.compressCold() : 0;
+    }
+
+    public synchronized long diskBytes() {
+        return fallback != null ? 0 : writePosition;
+    }
+
+    public synchronized IOException takeFailure() {
+        IOException taken = failure;
+        failure = null;
+        return taken;
+    }
+
+    @Override
+    public synchronized void clear() {
+        if (closed) {
+            return;
+        }
+        if (fallback != null) {
+            fallback.clear();
+            return;
+        }
+        firstIndex += size;
+        size = 0;
+        writePosition = 0;
+        lineOffsets = new long[1024];
+        version++;
+        rewrites++;
+        invalidateWindow();
+        try {
+            channel.truncate(0);
+        } catch (IOException e) {
+            fallBack(e, 0);
+        }
+    }
+
+    @Override
+    public synchronized void saveTo(Path path) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (fallback != null) {
+            fallback.saveTo(path);
+            return;
+        }
+        try (FileChannel target = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long copied = 0;
+            while (copied < writePosition) {
+                long transferred = channel.transferTo(copied, writePosition - copied, target);
+                if (transferred <= 0) {
+                    throw new IOException("Scrollback segment ended after " + copied + " of " + writePosition + " bytes");
+                }
+                copied += transferred;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void loadFrom(Path path) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (fallback != null || !isEmpty()) {
+            ScrollbackStore.super.loadFrom(path);
+            return;
+        }
+        invalidateWindow();
+        rewrites++;
+        channel.truncate(0);
+        writePosition = 0;
+        size = 0;
+        long length;
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            length = source.size();
+            long copied = 0;
+            while (copied < length) {
+                long transferred = channel.transferFrom(source, copied, length - copied);
+                if (transferred <= 0) {
+                    break;
+                }
+                copied += transferred;
+            }
+            length = copied;
+        }
+        writePosition = length;
+        lineOffsets[size++] = 0;
+        long position = 0;
+        while (position < writePosition) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW_BYTES, writePosition - position));
+            for (int i = 0; i < window.limit(); i++) {
+                if (window.get(i) == NEWLINE) {
+                    if (size == lineOffsets.length) {
+                        lineOffsets = Arrays.copyOf(lineOffsets, lineOffsets.length * 2);
+                    }
+                    lineOffsets[size++] = position + i + 1;
+                }
+            }
+            position += window.limit();
+        }
+        version++;
+    }
+
+    @Override
+    public synchronized boolean isDiskBacked() {
+        return fallback == null;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        releaseSegment();
+    }
+
+    private void fallBack(IOException cause, int keepLines) {
+        System.err.println("Scrollback segment " + segmentPath + " failed (" + cause + "), keeping scrollback in memory");
+        invalidateWindow();
+        ScrollbackBuffer heap = new ScrollbackBuffer(firstIndex);
+        for (int i = 0; i < keepLines; i++) {
+            String line = get(firstIndex + i);
+            heap.append(line == null ? "" : line);
+        }
+        version++;
+        releaseSegment();
+        fallback = heap;
+        failure = cause;
+    }
+
+    private void releaseSegment() {
+        invalidateWindow();
+        try {
+            channel.close();
+            Files.deleteIfExists(segmentPath);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeFully(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            writePosition += channel.write(bytes, writePosition);
+        }
+    }
+
+    private long lineEnd(int local) {
+        return local + 1 < size ? lineOffsets[local + 1] - 1 : writePosition;
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Scrollback segment ended at " + position);
+            }
+            position += read;
+        }
+    }
+
+    private MappedByteBuffer mapWindow(long start, int length) throws IOException {
+        if (mappedWindow != null && start >= mappedWindowStart && start + length <= mappedWindowStart + mappedWindow.limit()) {
+            return mappedWindow;
+        }
+        long windowStart = start & -MAP_WINDOW_BYTES;
+        long windowEnd = Math.max(windowStart + MAP_WINDOW_BYTES, start + length);
+        if (windowEnd > writePosition) {
+            return null;
+        }
+        mappedWindow = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+        mappedWindowStart = windowStart;
+        return mappedWindow;
+    }
+
+    private class BlockReader implements LineReader {
+        private final ByteBuffer block = ByteBuffer.allocate(READ_BLOCK_BYTES);
+        private long blockStart = -1;
+        private long blockRewrites = -1;
+        private LineReader heapReader;
+
+        @Override
+        public String get(long index) {
+            synchronized (MappedScrollbackStore.this) {
+                if (fallback != null) {
+                    if (heapReader == null) {
+                        heapReader = fallback.bulkReader();
+                    }
+                    return heapReader.get(index);
+                }
+                if (closed || index < firstIndex || index >= firstIndex + size) {
+                    return null;
+                }
+                int local = (int) (index - firstIndex);
+                long start = lineOffsets[local];
+                int length = (int) (lineEnd(local) - start);
+                if (length <= 0) {
+                    return "";
+                }
+                try {
+                    if (length > READ_BLOCK_BYTES / 2) {
+                        byte[] bytes = new byte[length];
+                        readFully(ByteBuffer.wrap(bytes), start);
+                        return new String(bytes, StandardCharsets.UTF_8);
+                    }
+                    if (blockRewrites != rewrites || start < blockStart || start + length > blockStart + block.limit()) {
+                        fill(start, length);
+                    }
+                    return new String(block.array(), (int) (start - blockStart), length, StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    blockStart = -1;
+                    return null;
+                }
+            }
+        }
+
+        private void fill(long start, int length) throws IOException {
+            long aligned = start & -(long) (READ_BLOCK_BYTES / 2);
+            blockStart = start + length - aligned <= READ_BLOCK_BYTES ? aligned : start;
+            block.clear();
+            block.limit((int) Math.min(READ_BLOCK_BYTES, writePosition - blockStart));
+            readFully(block, blockStart);
+            block.flip();
+            blockRewrites = rewrites;
+        }
+    }
+
+    private void invalidateWindow() {
+        mappedWindow = null;
+        mappedWindowStart = -1;
+    }
+
+    private static FileChannel openSegment(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
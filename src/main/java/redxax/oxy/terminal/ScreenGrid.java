@@ -0,0 +1,371 @@
+package redxax.oxy.terminal;
+
+import java.util.Arrays;
+
+public class ScreenGrid {
+    private int cols;
+    private int rows;
+    private char[] chars;
+    private long[] styles;
+    private int[] rowVersions;
+    private int cursorX = 0;
+    private int cursorY = 0;
+    private boolean wrapPending = false;
+    private int scrollTop = 0;
+    private int scrollBottom;
+    private long style = CellStyle.DEFAULT;
+    private boolean autoWrap = true;
+    private boolean originMode = false;
+    private boolean cursorVisible = true;
+    private boolean lineDrawing = false;
+    private int savedX = 0;
+    private int savedY = 0;
+    private long savedStyle = CellStyle.DEFAULT;
+    private boolean savedOriginMode = false;
+
+    public ScreenGrid(int cols, int rows) {
+        this.cols = Math.max(1, cols);
+        this.rows = Math.max(1, rows);
+        this.chars = new char[this.cols * this.rows];
+        this.styles = new long[this.cols * this.rows];
+        this.rowVersions = new int[this.rows];
+        this.scrollBottom = this.rows - 1;
+        Arrays.fill(chars, ' ');
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public char getChar(int row, int col) {
+        return chars[row * cols + col];
+    }
+
+    public long getStyle(int row, int col) {
+        return styles[row * cols + col];
+    }
+
+    public int getRowVersion(int row) {
+        return rowVersions[row];
+    }
+
+    public int getCursorX() {
+        return cursorX;
+    }
+
+    public int getCursorY() {
+        return cursorY;
+    }
+
+    public boolean isCursorVisible() {
+        return cursorVisible;
+    }
+
+    public void setCursorVisible(boolean cursorVisible) {
+        this.cursorVisible = cursorVisible;
+    }
+
+    public void setAutoWrap(boolean autoWrap) {
+        this.autoWrap = autoWrap;
+    }
+
+    public void setOriginMode(boolean originMode) {
+        this.originMode = originMode;
+        moveCursor(0, 0);
+    }
+
+    public void setLineDrawing(boolean lineDrawing) {
+        this.lineDrawing = lineDrawing;
+    }
+
+    public long getCurrentStyle() {
+        return style;
+    }
+
+    public void setCurrentStyle(long style) {
+        this.style = style;
+    }
+
+    public void resize(int newCols, int newRows) {
+        newCols = Math.max(1, newCols);
+        newRows = Math.max(1, newRows);
+        if (newCols == cols && newRows == rows) {
+            return;
+        }
+        char[] newChars = new char[newCols * newRows];
+        long[] newStyles = new long[newCols * newRows];
+        Arrays.fill(newChars, ' ');
+        int copyCols = Math.min(cols, newCols);
+        int rowOffset = Math.max(0, cursorY - newRows + 1);
+        for (int row = 0; row < Math.min(rows - rowOffset, newRows); row++) {
+            System.arraycopy(chars, (row + rowOffset) * cols, newChars, row * newCols, copyCols);
+            System.arraycopy(styles, (row + rowOffset) * cols, newStyles, row * newCols, copyCols);
+        }
+        cols = newCols;
+        rows = newRows;
+        chars = newChars;
+        styles = newStyles;
+        rowVersions = new int[rows];
+        scrollTop = 0;
+        scrollBottom = rows - 1;
+        cursorY -= rowOffset;
+        clampCursor();
+    }
+
+    public void reset() {
+        Arrays.fill(chars, ' ');
+        Arrays.fill(styles, CellStyle.DEFAULT);
+        cursorX = 0;
+        cursorY = 0;
+        wrapPending = false;
+        scrollTop = 0;
+        scrollBottom = rows - 1;
+        style = CellStyle.DEFAULT;
+        autoWrap = true;
+        originMode = false;
+        cursorVisible = true;
+        lineDrawing = false;
+        touchRows(0, rows);
+    }
+
+    public void print(char c) {
+        if (lineDrawing && c >= '`' && c <= '~') {
+            c = LINE_DRAWING[c - '`'];
+        }
+        if (wrapPending) {
+            if (autoWrap) {
+                cursorX = 0;
+                lineFeed();
+            }
+            wrapPending = false;
+        }
+        int index = cursorY * cols + cursorX;
+        chars[index] = c;
+        styles[index] = style;
+        rowVersions[cursorY]++;
+        if (cursorX == cols - 1) {
+            wrapPending = true;
+        } else {
+            cursorX++;
+        }
+    }
+
+    public void lineFeed() {
+        wrapPending = false;
+        if (cursorY == scrollBottom) {
+            scrollUp(1);
+        } else if (cursorY < rows - 1) {
+            cursorY++;
+        }
+    }
+
+    public void reverseIndex() {
+        wrapPending = false;
+        if (cursorY == scrollTop) {
+            scrollDown(1);
+        } else if (cursorY > 0) {
+            cursorY--;
+        }
+    }
+
+    public void carriageReturn() {
+        wrapPending = false;
+        cursorX = 0;
+    }
+
+    public void backspace() {
+        wrapPending = false;
+        if (cursorX > 0) {
+            cursorX--;
+        }
+    }
+
+    public void tab() {
+        cursorX = Math.min(cols - 1, (cursorX / 8 + 1) * 8);
+    }
+
+    public void moveCursor(int x, int y) {
+        wrapPending = false;
+        cursorX = x;
+        cursorY = originMode ? y + scrollTop : y;
+        clampCursor();
+    }
+
+    public void moveCursorRelative(int dx, int dy) {
+        wrapPending = false;
+        int top = cursorY >= scrollTop ? scrollTop : 0;
+        int bottom = cursorY <= scrollBottom ? scrollBottom : rows - 1;
+        cursorX = Math.max(0, Math.min(cols - 1, cursorX + dx));
+        cursorY = Math.max(top, Math.min(bottom, cursorY + dy));
+    }
+
+    public void setCursorColumn(int x) {
+        wrapPending = false;
+        cursorX = Math.max(0, Math.min(cols - 1, x));
+    }
+
+    public void setCursorRow(int y) {
+        moveCursor(cursorX, y);
+    }
+
+    public void eraseInDisplay(int mode) {
+        switch (mode) {
+            case 0 -> {
+                eraseInLine(0);
+                clearRows(cursorY + 1, rows);
+            }
+            case 1 -> {
+                eraseInLine(1);
+                clearRows(0, cursorY);
+            }
+            case 2, 3 -> clearRows(0, rows);
+            default -> {
+            }
+        }
+    }
+
+    public void eraseInLine(int mode) {
+        int start = cursorY * cols;
+        switch (mode) {
+            case 0 -> fill(start + cursorX, start + cols);
+            case 1 -> fill(start, start + Math.min(cursorX + 1, cols));
+            case 2 -> fill(start, start + cols);
+            default -> {
+                return;
+            }
+        }
+        rowVersions[cursorY]++;
+    }
+
+    public void eraseChars(int count) {
+        int start = cursorY * cols + cursorX;
+        fill(start, start + Math.min(count, cols - cursorX));
+        rowVersions[cursorY]++;
+    }
+
+    public void insertChars(int count) {
+        count = Math.min(count, cols - cursorX);
+        int start = cursorY * cols + cursorX;
+        int rowEnd = cursorY * cols + cols;
+        System.arraycopy(chars, start, chars, start + count, rowEnd - start - count);
+        System.arraycopy(styles, start, styles, start + count, rowEnd - start - count);
+        fill(start, start + count);
+        rowVersions[cursorY]++;
+    }
+
+    public void deleteChars(int count) {
+        count = Math.min(count, cols - cursorX);
+        int start = cursorY * cols + cursorX;
+        int rowEnd = cursorY * cols + cols;
+        System.arraycopy(chars, start + count, chars, start, rowEnd - start - count);
+        System.arraycopy(styles, start + count, styles, start, rowEnd - start - count);
+        fill(rowEnd - count, rowEnd);
+        rowVersions[cursorY]++;
+    }
+
+    public void insertLines(int count) {
+        if (cursorY < scrollTop || cursorY > scrollBottom) {
+            return;
+        }
+        shiftRegionDown(cursorY, scrollBottom, count);
+        cursorX = 0;
+    }
+
+    public void deleteLines(int count) {
+        if (cursorY < scrollTop || cursorY > scrollBottom) {
+            return;
+        }
+        shiftRegionUp(cursorY, scrollBottom, count);
+        cursorX = 0;
+    }
+
+    public void scrollUp(int count) {
+        shiftRegionUp(scrollTop, scrollBottom, count);
+    }
+
+    public void scrollDown(int count) {
+        shiftRegionDown(scrollTop, scrollBottom, count);
+    }
+
+    public void setScrollRegion(int top, int bottom) {
+        if (bottom <= 0 || bottom > rows) {
+            bottom = rows;
+        }
+        top = Math.max(1, top);
+        if (top >= bottom) {
+            return;
+        }
+        scrollTop = top - 1;
+        scrollBottom = bottom - 1;
+        moveCursor(0, 0);
+    }
+
+    public void saveCursor() {
+        savedX = cursorX;
+        savedY = cursorY;
+        savedStyle = style;
+        savedOriginMode = originMode;
+    }
+
+    public void restoreCursor() {
+        cursorX = savedX;
+        cursorY = savedY;
+        style = savedStyle;
+        originMode = savedOriginMode;
+        wrapPending = false;
+        clampCursor();
+    }
+
+    private void shiftRegionUp(int top, int bottom, int count) {
+        count = Math.min(count, bottom - top + 1);
+        int moved = (bottom - top + 1 - count) * cols;
+        System.arraycopy(chars, (top + count) * cols, chars, top * cols, moved);
+        System.arraycopy(styles, (top + count) * cols, styles, top * cols, moved);
+        fill((bottom - count + 1) * cols, (bottom + 1) * cols);
+        touchRows(top, bottom + 1);
+    }
+
+    private void shiftRegionDown(int top, int bottom, int count) {
+        count = Math.min(count, bottom - top + 1);
+        int moved = (bottom - top + 1 - count) * cols;
+        System.arraycopy(chars, top * cols, chars, (top + count) * cols, moved);
+        System.arraycopy(styles, top * cols, styles, (top + count) * cols, moved);
+        fill(top * cols, (top + count) * cols);
+        touchRows(top, bottom + 1);
+    }
+
+    private void clearRows(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        fill(from * cols, to * cols);
+        touchRows(from, to);
+    }
+
+    private void fill(int from, int to) {
+        Arrays.fill(chars, from, to, ' ');
+        Arrays.fill(styles, from, to, CellStyle.backgroundOnly(style));
+    }
+
+    private void touchRows(int from, int to) {
+        for (int row = from; row < to; row++) {
+            rowVersions[row]++;
+        }
+    }
+
+    private void clampCursor() {
+        cursorX = Math.max(0, Math.min(cols - 1, cursorX));
+        cursorY = Math.max(0, Math.min(rows - 1, cursorY));
+    }
+
+    private static final char[] LINE_DRAWING = {
+            '◆', '▒', '␉', '␌', '␍', '␊', '°', '±',
+            '␤', '␋', '┘', '┐', '┌', '└', '┼', '⎺',
+            '⎻', '─', '⎼', '⎽', '├', '┤', '┴', '┬',
+            '│', '≤', '≥', 'π', '≠', '£', '·'
+    };
+}
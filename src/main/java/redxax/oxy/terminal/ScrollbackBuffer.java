@@ -0,0 +1,340 @@
+package redxax.oxy.terminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+public class ScrollbackBuffer implements ScrollbackStore {
+    public static final int DEFAULT_MAX_LINES = 50_000;
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    private static final int LINE_OVERHEAD_BYTES = 40;
+    private static final int CHUNK_SHIFT = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private volatile State state = new State(new Object[0], 0, 0, 0, 0);
+    private long retainedBytes = 0;
+    private long packedLogicalBytes = 0;
+    private long packedBytes = 0;
+    private int maxLines;
+    private long maxBytes;
+
+    public ScrollbackBuffer() {
+        this(DEFAULT_MAX_LINES, DEFAULT_MAX_BYTES);
+    }
+
+    public ScrollbackBuffer(int maxLines, long maxBytes) {
+        this.maxLines = Math.max(1, maxLines);
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    ScrollbackBuffer(long firstIndex) {
+        this(DEFAULT_MAX_LINES, DEFAULT_MAX_BYTES);
+        this.state = new State(new Object[0], firstIndex & ~CHUNK_MASK, firstIndex, firstIndex, 0);
+    }
+
+    @Override
+    public synchronized void append(String line) {
+        State s = state;
+        Object[] chunks = s.chunks;
+        int chunk = (int) ((s.endIndex - s.chunkBase) >>> CHUNK_SHIFT);
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length + 1);
+            chunks[chunk] = new String[CHUNK_SIZE];
+        }
+        ((String[]) chunks[chunk])[(int) (s.endIndex - s.chunkBase) & CHUNK_MASK] = line;
+        retainedBytes += estimateBytes(line);
+        publish(chunks, s.chunkBase, s.firstIndex, s.endIndex + 1);
+    }
+
+    @Override
+    public synchronized void replaceLast(String line) {
+        State s = state;
+        if (s.endIndex == s.firstIndex) {
+            append(line);
+            return;
+        }
+        long relative = s.endIndex - 1 - s.chunkBase;
+        String[] chunk = (String[]) s.chunks[(int) (relative >>> CHUNK_SHIFT)];
+        int slot = (int) relative & CHUNK_MASK;
+        retainedBytes += estimateBytes(line) - estimateBytes(chunk[slot]);
+        chunk[slot] = line;
+        publish(s.chunks, s.chunkBase, s.firstIndex, s.endIndex);
+    }
+
+    @Override
+    public String get(long index) {
+        State s = state;
+        if (index < s.firstIndex || index >= s.endIndex) {
+            return null;
+        }
+        long relative = index - s.chunkBase;
+        int chunk = (int) (relative >>> CHUNK_SHIFT);
+        Object lines = s.chunks[chunk];
+        if (lines instanceof PackedChunk packed) {
+            lines = inflate(s.chunkBase + ((long) chunk << CHUNK_SHIFT), packed);
+        }
+        return ((String[]) lines)[(int) relative & CHUNK_MASK];
+    }
+
+    @Override
+    public LineReader bulkReader() {
+        return new ChunkReader();
+    }
+
+    @Override
+    public String last() {
+        return get(state.endIndex - 1);
+    }
+
+    @Override
+    public long firstIndex() {
+        return state.firstIndex;
+    }
+
+    @Override
+    public long endIndex() {
+        return state.endIndex;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        State s = state;
+        return s.endIndex == s.firstIndex;
+    }
+
+    @Override
+    public long version() {
+        return state.version;
+    }
+
+    @Override
+    public synchronized long retainedBytes() {
+        return retainedBytes;
+    }
+
+    @Override
+    public synchronized long heapBytes() {
+        return retainedBytes - packedLogicalBytes + packedBytes;
+    }
+
+    @Override
+    public long compressCold() {
+        long saved = 0;
+        while (true) {
+            State s = state;
+            if (s.endIndex - s.firstIndex < 2 * CHUNK_SIZE) {
+                return saved;
+            }
+            long firstChunk = (s.firstIndex - s.chunkBase) >>> CHUNK_SHIFT;
+            long tailChunk = (s.endIndex - 1 - s.chunkBase) >>> CHUNK_SHIFT;
+            int target = -1;
+            for (int i = (int) firstChunk + 1; i < tailChunk; i++) {
+                if (s.chunks[i] instanceof String[]) {
+                    target = i;
+                    break;
+                }
+            }
+            if (target < 0) {
+                return saved;
+            }
+            String[] lines = (String[]) s.chunks[target];
+            PackedChunk packed = PackedChunk.pack(lines);
+            long chunkStart = s.chunkBase + ((long) target << CHUNK_SHIFT);
+            synchronized (this) {
+                State current = state;
+                long relative = chunkStart - current.chunkBase;
+                int index = (int) (relative >>> CHUNK_SHIFT);
+                long firstChunkNow = (current.firstIndex - current.chunkBase) >>> CHUNK_SHIFT;
+                if (relative < 0 || index <= firstChunkNow || index >= current.chunks.length || current.chunks[index] != lines) {
+                    return saved;
+                }
+                Object[] chunks = current.chunks.clone();
+                chunks[index] = packed;
+                packedLogicalBytes += packed.logicalBytes;
+                packedBytes += packed.data.length;
+                saved += packed.logicalBytes - packed.data.length;
+                state = new State(chunks, current.chunkBase, current.firstIndex, current.endIndex, current.version);
+            }
+        }
+    }
+
+    public synchronized int getMaxLines() {
+        return maxLines;
+    }
+
+    public synchronized long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized void setLimits(int maxLines, long maxBytes) {
+        this.maxLines = Math.max(1, maxLines);
+        this.maxBytes = Math.max(1, maxBytes);
+        State s = state;
+        publish(s.chunks, s.chunkBase, s.firstIndex, s.endIndex);
+    }
+
+    @Override
+    public synchronized void clear() {
+        State s = state;
+        retainedBytes = 0;
+        packedLogicalBytes = 0;
+        packedBytes = 0;
+        state = new State(new Object[0], s.endIndex & ~CHUNK_MASK, s.endIndex, s.endIndex, s.version + 1);
+    }
+
+    @Override
+    public void saveTo(Path path) throws IOException {
+        State s = state;
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            String[] lines = null;
+            long loadedChunk = -1;
+            for (long index = s.firstIndex; index < s.endIndex; index++) {
+                if (index > s.firstIndex) {
+                    writer.write('\n');
+                }
+                long relative = index - s.chunkBase;
+                if (relative >>> CHUNK_SHIFT != loadedChunk) {
+                    loadedChunk = relative >>> CHUNK_SHIFT;
+                    Object chunk = s.chunks[(int) loadedChunk];
+                    lines = chunk instanceof PackedChunk packed ? packed.unpack() : (String[]) chunk;
+                }
+                String line = lines[(int) relative & CHUNK_MASK];
+                if (line != null) {
+                    writer.write(line);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean isDiskBacked() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private synchronized String[] inflate(long chunkStart, PackedChunk packed) {
+        State s = state;
+        long relative = chunkStart - s.chunkBase;
+        int index = (int) (relative >>> CHUNK_SHIFT);
+        if (relative < 0 || index >= s.chunks.length) {
+            return packed.unpack();
+        }
+        if (s.chunks[index] instanceof String[] lines) {
+            return lines;
+        }
+        String[] lines = packed.unpack();
+        Object[] chunks = s.chunks.clone();
+        chunks[index] = lines;
+        packedLogicalBytes -= packed.logicalBytes;
+        packedBytes -= packed.data.length;
+        state = new State(chunks, s.chunkBase, s.firstIndex, s.endIndex, s.version);
+        return lines;
+    }
+
+    private void publish(Object[] chunks, long chunkBase, long firstIndex, long endIndex) {
+        while (endIndex - firstIndex > 1 && (endIndex - firstIndex > maxLines || retainedBytes > maxBytes)) {
+            long relative = firstIndex - chunkBase;
+            int chunkIndex = (int) (relative >>> CHUNK_SHIFT);
+            if (chunks[chunkIndex] instanceof PackedChunk packed) {
+                chunks = chunks.clone();
+                chunks[chunkIndex] = packed.unpack();
+                packedLogicalBytes -= packed.logicalBytes;
+                packedBytes -= packed.data.length;
+            }
+            String[] chunk = (String[]) chunks[chunkIndex];
+            int slot = (int) relative & CHUNK_MASK;
+            retainedBytes -= estimateBytes(chunk[slot]);
+            chunk[slot] = null;
+            firstIndex++;
+        }
+        int droppedChunks = (int) ((firstIndex - chunkBase) >>> CHUNK_SHIFT);
+        if (droppedChunks > 0) {
+            chunks = Arrays.copyOfRange(chunks, droppedChunks, chunks.length);
+            chunkBase += (long) droppedChunks << CHUNK_SHIFT;
+        }
+        state = new State(chunks, chunkBase, firstIndex, endIndex, state.version + 1);
+    }
+
+    private static long estimateBytes(String line) {
+        return line == null ? 0 : LINE_OVERHEAD_BYTES + 2L * line.length();
+    }
+
+    private class ChunkReader implements LineReader {
+        private Object source;
+        private String[] lines;
+
+        @Override
+        public String get(long index) {
+            State s = state;
+            if (index < s.firstIndex || index >= s.endIndex) {
+                return null;
+            }
+            long relative = index - s.chunkBase;
+            Object chunk = s.chunks[(int) (relative >>> CHUNK_SHIFT)];
+            if (chunk != source) {
+                source = chunk;
+                lines = chunk instanceof PackedChunk packed ? packed.unpack() : (String[]) chunk;
+            }
+            return lines[(int) relative & CHUNK_MASK];
+        }
+    }
+
+    private record State(Object[] chunks, long chunkBase, long firstIndex, long endIndex, long version) {
+    }
+
+    private record PackedChunk(byte[] data, long logicalBytes) {
+        static PackedChunk pack(String[] lines) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            long logicalBytes = 0;
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater, 8192))) {
+                for (String line : lines) {
+                    logicalBytes += estimateBytes(line);
+                    if (line == null) {
+                        out.writeInt(-1);
+                        continue;
+                    }
+                    byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(encoded.length);
+                    out.write(encoded);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deflater.end();
+            }
+            return new PackedChunk(bytes.toByteArray(), logicalBytes);
+        }
+
+        String[] unpack() {
+            String[] lines = new String[CHUNK_SIZE];
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data)))) {
+                for (int i = 0; i < CHUNK_SIZE; i++) {
+                    int length = in.readInt();
+                    if (length >= 0) {
+                        lines[i] = new String(in.readNBytes(length), StandardCharsets.UTF_8);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return lines;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package redxax.oxy.terminal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class ScrollbackExporter implements VtHandler {
+    private static final int BUFFER_BYTES = 256 * 1024;
+    private static final int CHUNK_CHARS = 64 * 1024;
+    private static final int PROGRESS_INTERVAL = 8192;
+    private static final String HTML_HEADER = "<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>Remotely terminal output</title></head>\n"
+            + "<body style=\"background:#0a0a0a;color:#ffffff\"><pre style=\"font-family:monospace\">\n";
+    private static final String HTML_FOOTER = "</pre></body></html>\n";
+    private final Format format;
+    private final HighlightEngine highlightEngine;
+    private final VtParser parser = new VtParser(this);
+    private final StringBuilder plain = new StringBuilder();
+    private long[] styles = new long[256];
+    private long style = CellStyle.DEFAULT;
+    private final Map<Long, String> cssCache = new HashMap<>();
+
+    public enum Format {
+        PLAIN("txt"), ANSI("ansi"), HTML("html");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    public interface Progress {
+        void update(long lines, long totalLines, long bytes);
+    }
+
+    public ScrollbackExporter(Format format, HighlightEngine highlightEngine) {
+        this.format = format;
+        this.highlightEngine = highlightEngine;
+    }
+
+    public long export(ScrollbackStore store, long from, long to, Path path, Progress progress) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 1024);
+        long written = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            if (format == Format.HTML) {
+                chunk.append(HTML_HEADER);
+            }
+            ScrollbackStore.LineReader reader = store.bulkReader();
+            long total = Math.max(0, to - from);
+            for (long index = from; index < to; index++) {
+                String line = reader.get(index);
+                if (line != null) {
+                    appendLine(chunk, line);
+                    chunk.append('\n');
+                }
+                if (chunk.length() >= CHUNK_CHARS) {
+                    written += encode(chunk, encoder, buffer, channel, false);
+                }
+                if ((index - from) % PROGRESS_INTERVAL == 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Export cancelled");
+                    }
+                    progress.update(index - from, total, written);
+                }
+            }
+            if (format == Format.HTML) {
+                chunk.append(HTML_FOOTER);
+            }
+            written += encode(chunk, encoder, buffer, channel, true);
+            progress.update(total, total, written);
+        }
+        return written;
+    }
+
+    private void appendLine(StringBuilder out, String line) {
+        switch (format) {
+            case PLAIN -> out.append(VtParser.strip(line));
+            case ANSI -> out.append(line).append("\u001B[0m");
+            case HTML -> appendHtml(out, line);
+        }
+    }
+
+    private void appendHtml(StringBuilder out, String line) {
+        style = CellStyle.DEFAULT;
+        plain.setLength(0);
+        parser.reset();
+        parser.feed(line);
+        int length = plain.length();
+        if (highlightEngine != null) {
+            highlightEngine.highlight(plain.toString(), styles);
+        }
+        int runStart = 0;
+        for (int i = 1; i <= length; i++) {
+            if (i == length || styles[i] != styles[runStart]) {
+                String css = cssCache.computeIfAbsent(styles[runStart], ScrollbackExporter::css);
+                if (!css.isEmpty()) {
+                    out.append("<span style=\"").append(css).append("\">");
+                }
+                for (int j = runStart; j < i; j++) {
+                    char c = plain.charAt(j);
+                    switch (c) {
+                        case '&' -> out.append("&amp;");
+                        case '<' -> out.append("&lt;");
+                        case '>' -> out.append("&gt;");
+                        default -> out.append(c);
+                    }
+                }
+                if (!css.isEmpty()) {
+                    out.append("</span>");
+                }
+                runStart = i;
+            }
+        }
+    }
+
+    private static String css(long style) {
+        if (style == CellStyle.DEFAULT) {
+            return "";
+        }
+        boolean inverse = CellStyle.has(style, CellStyle.INVERSE);
+        boolean hasForeground = inverse || CellStyle.hasForeground(style);
+        boolean hasBackground = inverse || CellStyle.hasBackground(style);
+        int foreground = inverse ? (CellStyle.hasBackground(style) ? CellStyle.background(style) : 0x0A0A0A) : CellStyle.foreground(style);
+        int background = inverse ? (CellStyle.hasForeground(style) ? CellStyle.foreground(style) : 0xFFFFFF) : CellStyle.background(style);
+        StringBuilder css = new StringBuilder();
+        if (hasForeground) {
+            css.append(String.format("color:#%06x;", foreground));
+        }
+        if (hasBackground) {
+            css.append(String.format("background:#%06x;", background));
+        }
+        if (CellStyle.has(style, CellStyle.BOLD)) {
+            css.append("font-weight:bold;");
+        }
+        if (CellStyle.has(style, CellStyle.DIM)) {
+            css.append("opacity:0.6;");
+        }
+        if (CellStyle.has(style, CellStyle.ITALIC)) {
+            css.append("font-style:italic;");
+        }
+        if (CellStyle.has(style, CellStyle.UNDERLINE) || CellStyle.has(style, CellStyle.STRIKETHROUGH)) {
+            css.append("text-decoration:").append(CellStyle.has(style, CellStyle.UNDERLINE) ? "underline " : "")
+                    .append(CellStyle.has(style, CellStyle.STRIKETHROUGH) ? "line-through" : "").append(';');
+        }
+        if (CellStyle.has(style, CellStyle.HIDDEN)) {
+            css.append("visibility:hidden;");
+        }
+        return css.toString();
+    }
+
+    private static long encode(StringBuilder chunk, CharsetEncoder encoder, ByteBuffer buffer, FileChannel channel, boolean endOfInput) throws IOException {
+        long written = 0;
+        CharBuffer chars = CharBuffer.wrap(chunk);
+        while (true) {
+            boolean overflow = encoder.encode(chars, buffer, endOfInput).isOverflow();
+            if (!overflow && endOfInput) {
+                overflow = encoder.flush(buffer).isOverflow();
+            }
+            if (overflow || endOfInput) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+                buffer.clear();
+            }
+            if (!overflow) {
+                break;
+            }
+        }
+        chunk.setLength(0);
+        return written;
+    }
+
+    private void append(char c) {
+        if (plain.length() == styles.length) {
+            styles = Arrays.copyOf(styles, styles.length * 2);
+        }
+        styles[plain.length()] = style;
+        plain.append(c);
+    }
+
+    @Override
+    public void print(char c) {
+        append(c);
+    }
+
+    @Override
+    public void execute(char c) {
+        if (c == '\t') {
+            for (int i = 0; i < 4; i++) {
+                append(' ');
+            }
+        }
+    }
+
+    @Override
+    public void csiDispatch(char command, int[] params, int paramCount, int subParams, char privateMarker, int intermediates) {
+        if (command == 'm' && privateMarker == 0 && intermediates == 0) {
+            style = CellStyle.applySgr(style, params, paramCount, subParams);
+        }
+    }
+
+    @Override
+    public void escDispatch(char command, int intermediates) {
+    }
+}
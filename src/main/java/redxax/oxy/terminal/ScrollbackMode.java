@@ -0,0 +1,5 @@
+package redxax.oxy.terminal;
+
+public enum ScrollbackMode {
+    MEMORY, DISK
+}
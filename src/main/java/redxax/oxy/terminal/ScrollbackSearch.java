@@ -0,0 +1,208 @@
+package redxax.oxy.terminal;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class ScrollbackSearch {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int FILTER_BITS = 1 << 16;
+    private final Executor executor;
+    private final Map<Long, long[]> chunkFilters = new ConcurrentHashMap<>();
+    private volatile Task current;
+
+    public ScrollbackSearch(Executor executor) {
+        this.executor = executor;
+    }
+
+    public Task start(ScrollbackStore store, String query, boolean regex) {
+        cancel();
+        Task task = new Task(query, regex);
+        current = task;
+        executor.execute(() -> run(store, task));
+        return task;
+    }
+
+    public Task current() {
+        return current;
+    }
+
+    public void cancel() {
+        Task task = current;
+        if (task != null) {
+            task.cancelled = true;
+        }
+        current = null;
+    }
+
+    public void reset() {
+        cancel();
+        chunkFilters.clear();
+    }
+
+    public int indexedChunks() {
+        return chunkFilters.size();
+    }
+
+    private void run(ScrollbackStore store, Task task) {
+        try {
+            Pattern pattern = null;
+            String needle = null;
+            int[] trigrams = null;
+            if (task.regex) {
+                pattern = Pattern.compile(task.query, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+            } else {
+                needle = task.query.toLowerCase(Locale.ROOT);
+                trigrams = trigrams(needle);
+            }
+            ScrollbackStore.LineReader reader = store.bulkReader();
+            long first = store.firstIndex();
+            long end = store.endIndex();
+            long firstChunk = first >> CHUNK_SHIFT;
+            chunkFilters.keySet().removeIf(chunk -> chunk < firstChunk);
+            for (long chunk = (end - 1) >> CHUNK_SHIFT; chunk >= firstChunk && end > first; chunk--) {
+                if (task.cancelled) {
+                    return;
+                }
+                long chunkStart = Math.max(first, chunk << CHUNK_SHIFT);
+                long chunkEnd = Math.min(end, (chunk + 1) << CHUNK_SHIFT);
+                boolean sealed = (chunk + 1) << CHUNK_SHIFT < end;
+                long[] filter = sealed ? chunkFilters.get(chunk) : null;
+                if (filter != null && trigrams != null && !mightContainAll(filter, trigrams)) {
+                    task.skippedChunks++;
+                    continue;
+                }
+                long[] building = sealed && filter == null ? new long[FILTER_BITS / 64] : null;
+                for (long index = chunkEnd - 1; index >= chunkStart; index--) {
+                    if (task.cancelled) {
+                        return;
+                    }
+                    String line = reader.get(index);
+                    if (line == null) {
+                        continue;
+                    }
+                    String plain = VtParser.strip(line);
+                    String lower = needle != null || building != null ? plain.toLowerCase(Locale.ROOT) : null;
+                    if (building != null) {
+                        addTrigrams(building, lower);
+                    }
+                    if (pattern != null ? pattern.matcher(plain).find() : lower.contains(needle)) {
+                        task.add(index);
+                    }
+                }
+                if (building != null) {
+                    chunkFilters.put(chunk, building);
+                }
+                task.scannedChunks++;
+            }
+        } catch (PatternSyntaxException e) {
+            task.error = "Invalid regex: " + e.getDescription();
+        } catch (Exception e) {
+            task.error = "Search failed: " + e.getMessage();
+        } finally {
+            task.done = true;
+        }
+    }
+
+    private static int[] trigrams(String text) {
+        if (text.length() < 3) {
+            return null;
+        }
+        int[] hashes = new int[text.length() - 2];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = trigramHash(text, i);
+        }
+        return hashes;
+    }
+
+    private static void addTrigrams(long[] filter, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            int hash = trigramHash(text, i);
+            int a = hash & (FILTER_BITS - 1);
+            int b = (hash >>> 16) & (FILTER_BITS - 1);
+            filter[a >>> 6] |= 1L << a;
+            filter[b >>> 6] |= 1L << b;
+        }
+    }
+
+    private static boolean mightContainAll(long[] filter, int[] hashes) {
+        for (int hash : hashes) {
+            int a = hash & (FILTER_BITS - 1);
+            int b = (hash >>> 16) & (FILTER_BITS - 1);
+            if ((filter[a >>> 6] & (1L << a)) == 0 || (filter[b >>> 6] & (1L << b)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trigramHash(String text, int i) {
+        int h = (text.charAt(i) * 31 + text.charAt(i + 1)) * 31 + text.charAt(i + 2);
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    public static class Task {
+        private final String query;
+        private final boolean regex;
+        private long[] matches = new long[64];
+        private int count = 0;
+        private volatile boolean cancelled = false;
+        private volatile boolean done = false;
+        private volatile String error;
+        private volatile int scannedChunks = 0;
+        private volatile int skippedChunks = 0;
+
+        Task(String query, boolean regex) {
+            this.query = query;
+            this.regex = regex;
+        }
+
+        private synchronized void add(long index) {
+            if (count == matches.length) {
+                matches = Arrays.copyOf(matches, count * 2);
+            }
+            matches[count++] = index;
+        }
+
+        public synchronized long get(int i) {
+            return matches[i];
+        }
+
+        public synchronized int size() {
+            return count;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public boolean isRegex() {
+            return regex;
+        }
+
+        public boolean isDone() {
+            return done;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public int getScannedChunks() {
+            return scannedChunks;
+        }
+
+        public int getSkippedChunks() {
+            return skippedChunks;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package redxax.oxy.terminal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public interface ScrollbackStore {
+
+    interface LineReader {
+        String get(long index);
+    }
+
+    void append(String line);
+
+    void replaceLast(String line);
+
+    String get(long index);
+
+    default LineReader bulkReader() {
+        return this::get;
+    }
+
+    String last();
+
+    long firstIndex();
+
+    long endIndex();
+
+    boolean isEmpty();
+
+    long version();
+
+    long retainedBytes();
+
+    default long heapBytes() {
+        return retainedBytes();
+    }
+
+    default long compressCold() {
+        return 0;
+    }
+
+    void clear();
+
+    void saveTo(Path path) throws IOException;
+
+    boolean isDiskBacked();
+
+    void close();
+
+    default void loadFrom(Path path) throws IOException {
+        appendText(Files.readString(path));
+    }
+
+    default void appendText(String text) {
+        String[] lines = text.split("\n", -1);
+        for (int i = 0; i < lines.length; i++) {
+            if (i == 0 && !isEmpty()) {
+                if (!lines[0].isEmpty()) {
+                    replaceLast(last() + lines[0]);
+                }
+            } else {
+                append(lines[i]);
+            }
+        }
+    }
+}
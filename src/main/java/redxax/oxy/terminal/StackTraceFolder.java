@@ -0,0 +1,140 @@
+package redxax.oxy.terminal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class StackTraceFolder {
+    public static final int OTHER = 0;
+    public static final int HEADER = 1;
+    public static final int FRAME = 2;
+    public static final int CAUSE = 3;
+    public static final int MORE = 4;
+    public static final int MAX_FRAMES = 4096;
+    private static final int MAX_KNOWN_TRACES = 64;
+    private static final long STALE_NANOS = 250_000_000L;
+    private static final Pattern HEADER_PATTERN = Pattern.compile("^(?:[A-Za-z_$][\\w$]*\\.)+[A-Z][\\w$]*(?:Exception|Error|Throwable)(?::.*)?$");
+    private final List<String> frames = new ArrayList<>();
+    private final Map<Integer, Long> knownTraces = new LinkedHashMap<>(MAX_KNOWN_TRACES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Long> eldest) {
+            return size() > MAX_KNOWN_TRACES;
+        }
+    };
+    private String header;
+    private long headerIndex = -1;
+    private int hash = 1;
+    private long lastActivity = 0;
+    private long foldedTraces = 0;
+    private long duplicateTraces = 0;
+
+    public static int classify(String line) {
+        if (line.isEmpty()) {
+            return OTHER;
+        }
+        String text = VtParser.strip(line);
+        int start = 0;
+        while (start < text.length() && (text.charAt(start) == ' ' || text.charAt(start) == '\t')) {
+            start++;
+        }
+        if (text.startsWith("at ", start)) {
+            return start > 0 || text.indexOf('(', start) > 0 ? FRAME : OTHER;
+        }
+        if (text.startsWith("Caused by: ", start) || text.startsWith("Suppressed: ", start)) {
+            return CAUSE;
+        }
+        if (text.startsWith("... ", start) && text.endsWith(" more")) {
+            return MORE;
+        }
+        if (start == 0 && (text.startsWith("Exception in thread ") || ((text.contains("Exception") || text.contains("Error") || text.contains("Throwable"))
+                && HEADER_PATTERN.matcher(text).matches()))) {
+            return HEADER;
+        }
+        return OTHER;
+    }
+
+    public boolean isTracing() {
+        return header != null || headerIndex >= 0;
+    }
+
+    public void hold(String header) {
+        this.header = header;
+        this.headerIndex = -1;
+        String text = VtParser.strip(header);
+        int colon = text.indexOf(':');
+        hash = 31 + (colon < 0 ? text : text.substring(0, colon)).hashCode();
+        lastActivity = System.nanoTime();
+    }
+
+    public void attach(long headerIndex) {
+        this.header = null;
+        this.headerIndex = headerIndex;
+        hash = 1;
+        lastActivity = System.nanoTime();
+    }
+
+    public boolean addFrame(String frame) {
+        if (frames.size() >= MAX_FRAMES) {
+            return false;
+        }
+        frames.add(frame);
+        hash = 31 * hash + VtParser.strip(frame).trim().hashCode();
+        lastActivity = System.nanoTime();
+        return true;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public long getHeaderIndex() {
+        return headerIndex;
+    }
+
+    public List<String> getFrames() {
+        return frames;
+    }
+
+    public boolean isStale() {
+        return isTracing() && System.nanoTime() - lastActivity > STALE_NANOS;
+    }
+
+    public long findDuplicate(long firstIndex) {
+        if (header == null || frames.isEmpty()) {
+            return -1;
+        }
+        Long known = knownTraces.get(hash);
+        if (known == null || known < firstIndex) {
+            return -1;
+        }
+        duplicateTraces++;
+        return known;
+    }
+
+    public void remember(long headerIndex) {
+        foldedTraces++;
+        knownTraces.put(hash, headerIndex);
+    }
+
+    public void reset() {
+        header = null;
+        headerIndex = -1;
+        frames.clear();
+        hash = 1;
+    }
+
+    public void clear() {
+        reset();
+        knownTraces.clear();
+    }
+
+    public long getFoldedTraces() {
+        return foldedTraces;
+    }
+
+    public long getDuplicateTraces() {
+        return duplicateTraces;
+    }
+}
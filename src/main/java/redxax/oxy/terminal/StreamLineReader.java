@@ -0,0 +1,118 @@
+package redxax.oxy.terminal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+public class StreamLineReader {
+    public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+    private final InputStream in;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+    private final StringBuilder partial = new StringBuilder();
+    private final boolean lineBuffered;
+    private boolean eof = false;
+    private long bytesRead = 0;
+    private long linesRead = 0;
+
+    public StreamLineReader(InputStream in, int bufferBytes) {
+        this(in, bufferBytes, true);
+    }
+
+    public StreamLineReader(InputStream in, int bufferBytes, boolean lineBuffered) {
+        this.in = in;
+        this.lineBuffered = lineBuffered;
+        this.bytes = ByteBuffer.allocate(bufferBytes);
+        this.chars = CharBuffer.allocate(bufferBytes);
+    }
+
+    public String readBatch() throws IOException {
+        while (!eof) {
+            int read = in.read(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            if (read < 0) {
+                eof = true;
+                bytes.flip();
+                decoder.decode(bytes, chars, true);
+                decoder.flush(chars);
+                bytes.clear();
+            } else {
+                bytesRead += read;
+                bytes.position(bytes.position() + read);
+                bytes.flip();
+                decoder.decode(bytes, chars, false);
+                bytes.compact();
+            }
+            String batch = takeLines();
+            if (batch != null) {
+                return batch;
+            }
+        }
+        if (partial.isEmpty()) {
+            return null;
+        }
+        String rest = partial.toString();
+        partial.setLength(0);
+        return rest;
+    }
+
+    private String takeLines() {
+        char[] array = chars.array();
+        int length = chars.position();
+        int kept = 0;
+        int lastNewline = -1;
+        int lines = 0;
+        for (int i = 0; i < length; i++) {
+            char c = array[i];
+            if (c == '\u0000') {
+                continue;
+            }
+            if (c == '\n') {
+                lastNewline = kept;
+                lines++;
+            }
+            array[kept++] = c;
+        }
+        chars.clear();
+        if (!lineBuffered) {
+            if (kept == 0 && partial.isEmpty()) {
+                return null;
+            }
+            linesRead += lines;
+            if (partial.isEmpty()) {
+                return new String(array, 0, kept);
+            }
+            String batch = partial.append(array, 0, kept).toString();
+            partial.setLength(0);
+            return batch;
+        }
+        if (lastNewline < 0) {
+            partial.append(array, 0, kept);
+            return null;
+        }
+        String batch;
+        if (partial.isEmpty()) {
+            batch = new String(array, 0, lastNewline + 1);
+        } else {
+            batch = partial.append(array, 0, lastNewline + 1).toString();
+            partial.setLength(0);
+        }
+        partial.append(array, lastNewline + 1, kept - lastNewline - 1);
+        linesRead += lines;
+        return batch;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+}
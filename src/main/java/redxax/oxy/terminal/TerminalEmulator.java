@@ -0,0 +1,323 @@
+package redxax.oxy.terminal;
+
+import java.util.function.Consumer;
+
+public class TerminalEmulator implements VtHandler {
+
+    public interface OutputSink {
+        void write(String text);
+
+        void clearLine();
+
+        void backspace();
+    }
+
+    private final VtParser parser = new VtParser(this);
+    private final ScreenGrid screen = new ScreenGrid(80, 24);
+    private final OutputSink sink;
+    private final Consumer<String> responder;
+    private final StringBuilder pending = new StringBuilder();
+    private boolean altScreen = false;
+    private boolean applicationCursorKeys = false;
+    private boolean carriageReturn = false;
+    private long lineStyle = CellStyle.DEFAULT;
+    private int cols = 80;
+    private int rows = 24;
+    private long version = 0;
+
+    public TerminalEmulator(OutputSink sink, Consumer<String> responder) {
+        this.sink = sink;
+        this.responder = responder;
+    }
+
+    public void feed(CharSequence text) {
+        parser.feed(text);
+        flush();
+        version++;
+    }
+
+    public boolean resize(int newCols, int newRows) {
+        if (newCols == cols && newRows == rows) {
+            return false;
+        }
+        cols = newCols;
+        rows = newRows;
+        screen.resize(cols, rows);
+        version++;
+        return true;
+    }
+
+    public void reset() {
+        parser.reset();
+        pending.setLength(0);
+        altScreen = false;
+        applicationCursorKeys = false;
+        carriageReturn = false;
+        lineStyle = CellStyle.DEFAULT;
+        screen.reset();
+        version++;
+    }
+
+    public boolean isAltScreen() {
+        return altScreen;
+    }
+
+    public boolean isApplicationCursorKeys() {
+        return applicationCursorKeys;
+    }
+
+    public ScreenGrid getScreen() {
+        return screen;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public void print(char c) {
+        if (altScreen) {
+            screen.print(c);
+            return;
+        }
+        beginLineWrite();
+        pending.append(c);
+    }
+
+    @Override
+    public void execute(char c) {
+        if (altScreen) {
+            switch (c) {
+                case '\n', 0x0B, 0x0C -> screen.lineFeed();
+                case '\r' -> screen.carriageReturn();
+                case '\b' -> screen.backspace();
+                case '\t' -> screen.tab();
+                default -> {
+                }
+            }
+            return;
+        }
+        switch (c) {
+            case '\n', 0x0B, 0x0C -> {
+                carriageReturn = false;
+                pending.append('\n');
+                if (lineStyle != CellStyle.DEFAULT) {
+                    CellStyle.appendSgr(lineStyle, pending);
+                }
+            }
+            case '\r' -> carriageReturn = true;
+            case '\t' -> {
+                beginLineWrite();
+                pending.append("    ");
+            }
+            case '\b' -> {
+                int index = lastPrintableIndex(pending);
+                if (index >= 0) {
+                    pending.deleteCharAt(index);
+                } else {
+                    flush();
+                    sink.backspace();
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void csiDispatch(char command, int[] params, int paramCount, int subParams, char privateMarker, int intermediates) {
+        if (privateMarker == '?') {
+            if (command == 'h' || command == 'l') {
+                for (int i = 0; i < paramCount; i++) {
+                    setPrivateMode(params[i], command == 'h');
+                }
+            }
+            return;
+        }
+        if (privateMarker != 0 || intermediates != 0) {
+            if (privateMarker == '>' && command == 'c') {
+                responder.accept("\u001B[>0;10;1c");
+            }
+            return;
+        }
+        if (command == 'c') {
+            responder.accept("\u001B[?1;2c");
+            return;
+        }
+        if (!altScreen) {
+            switch (command) {
+                case 'm' -> {
+                    lineStyle = CellStyle.applySgr(lineStyle, params, paramCount, subParams);
+                    CellStyle.appendSgr(lineStyle, pending);
+                }
+                case 'K' -> {
+                    int mode = param(params, paramCount, 0, 0);
+                    if (mode == 2 || (mode == 0 && carriageReturn)) {
+                        flush();
+                        sink.clearLine();
+                        carriageReturn = false;
+                    }
+                }
+                case 'n' -> {
+                    if (param(params, paramCount, 0, 0) == 5) {
+                        responder.accept("\u001B[0n");
+                    }
+                }
+                default -> {
+                }
+            }
+            return;
+        }
+        int n = Math.max(1, param(params, paramCount, 0, 1));
+        switch (command) {
+            case 'A' -> screen.moveCursorRelative(0, -n);
+            case 'B', 'e' -> screen.moveCursorRelative(0, n);
+            case 'C', 'a' -> screen.moveCursorRelative(n, 0);
+            case 'D' -> screen.moveCursorRelative(-n, 0);
+            case 'E' -> {
+                screen.moveCursorRelative(0, n);
+                screen.carriageReturn();
+            }
+            case 'F' -> {
+                screen.moveCursorRelative(0, -n);
+                screen.carriageReturn();
+            }
+            case 'G', '`' -> screen.setCursorColumn(n - 1);
+            case 'd' -> screen.setCursorRow(n - 1);
+            case 'H', 'f' -> screen.moveCursor(Math.max(1, param(params, paramCount, 1, 1)) - 1, n - 1);
+            case 'J' -> screen.eraseInDisplay(param(params, paramCount, 0, 0));
+            case 'K' -> screen.eraseInLine(param(params, paramCount, 0, 0));
+            case 'L' -> screen.insertLines(n);
+            case 'M' -> screen.deleteLines(n);
+            case 'P' -> screen.deleteChars(n);
+            case '@' -> screen.insertChars(n);
+            case 'X' -> screen.eraseChars(n);
+            case 'S' -> screen.scrollUp(n);
+            case 'T' -> screen.scrollDown(n);
+            case 'r' -> screen.setScrollRegion(param(params, paramCount, 0, 1), param(params, paramCount, 1, screen.getRows()));
+            case 'm' -> screen.setCurrentStyle(CellStyle.applySgr(screen.getCurrentStyle(), params, paramCount, subParams));
+            case 's' -> screen.saveCursor();
+            case 'u' -> screen.restoreCursor();
+            case 'n' -> {
+                int query = param(params, paramCount, 0, 0);
+                if (query == 6) {
+                    responder.accept("\u001B[" + (screen.getCursorY() + 1) + ";" + (screen.getCursorX() + 1) + "R");
+                } else if (query == 5) {
+                    responder.accept("\u001B[0n");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void escDispatch(char command, int intermediates) {
+        if (intermediates == '(') {
+            if (altScreen) {
+                screen.setLineDrawing(command == '0');
+            }
+            return;
+        }
+        if (intermediates != 0) {
+            return;
+        }
+        if (command == 'c') {
+            flush();
+            reset();
+            return;
+        }
+        if (!altScreen) {
+            return;
+        }
+        switch (command) {
+            case '7' -> screen.saveCursor();
+            case '8' -> screen.restoreCursor();
+            case 'D' -> screen.lineFeed();
+            case 'E' -> {
+                screen.lineFeed();
+                screen.carriageReturn();
+            }
+            case 'M' -> screen.reverseIndex();
+            default -> {
+            }
+        }
+    }
+
+    private void setPrivateMode(int mode, boolean enabled) {
+        switch (mode) {
+            case 1 -> applicationCursorKeys = enabled;
+            case 6 -> screen.setOriginMode(enabled);
+            case 7 -> screen.setAutoWrap(enabled);
+            case 25 -> screen.setCursorVisible(enabled);
+            case 47, 1047, 1049 -> {
+                if (enabled == altScreen) {
+                    return;
+                }
+                flush();
+                if (enabled) {
+                    if (mode == 1049) {
+                        screen.saveCursor();
+                    }
+                    screen.reset();
+                    screen.resize(cols, rows);
+                } else if (mode == 1049) {
+                    screen.restoreCursor();
+                }
+                altScreen = enabled;
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void beginLineWrite() {
+        if (!carriageReturn) {
+            return;
+        }
+        carriageReturn = false;
+        flush();
+        sink.clearLine();
+        if (lineStyle != CellStyle.DEFAULT) {
+            CellStyle.appendSgr(lineStyle, pending);
+        }
+    }
+
+    private void flush() {
+        if (pending.length() > 0) {
+            sink.write(pending.toString());
+            pending.setLength(0);
+        }
+    }
+
+    private static int param(int[] params, int paramCount, int index, int defaultValue) {
+        return index < paramCount && params[index] != 0 ? params[index] : defaultValue;
+    }
+
+    public static int lastPrintableIndex(CharSequence text) {
+        int i = text.length() - 1;
+        while (i >= 0) {
+            if (text.charAt(i) != 'm') {
+                return i;
+            }
+            int j = i - 1;
+            while (j >= 0 && (Character.isDigit(text.charAt(j)) || text.charAt(j) == ';')) {
+                j--;
+            }
+            if (j >= 1 && text.charAt(j) == '[' && text.charAt(j - 1) == '\u001B') {
+                i = j - 2;
+            } else {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
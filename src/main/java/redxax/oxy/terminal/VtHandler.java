@@ -0,0 +1,15 @@
+package redxax.oxy.terminal;
+
+public interface VtHandler {
+
+    void print(char c);
+
+    void execute(char c);
+
+    void csiDispatch(char command, int[] params, int paramCount, int subParams, char privateMarker, int intermediates);
+
+    void escDispatch(char command, int intermediates);
+
+    default void oscDispatch(CharSequence data) {
+    }
+}
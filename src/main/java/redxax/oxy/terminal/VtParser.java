@@ -0,0 +1,269 @@
+package redxax.oxy.terminal;
+
+public class VtParser {
+    private static final int GROUND = 0;
+    private static final int ESCAPE = 1;
+    private static final int ESCAPE_INTERMEDIATE = 2;
+    private static final int CSI_ENTRY = 3;
+    private static final int CSI_PARAM = 4;
+    private static final int CSI_INTERMEDIATE = 5;
+    private static final int CSI_IGNORE = 6;
+    private static final int OSC_STRING = 7;
+    private static final int STRING_IGNORE = 8;
+    private static final int MAX_PARAMS = 32;
+    private static final int MAX_PARAM_VALUE = 99_999;
+    private static final int MAX_OSC_LENGTH = 1024;
+
+    private final VtHandler handler;
+    private final int[] params = new int[MAX_PARAMS];
+    private final StringBuilder oscData = new StringBuilder();
+    private int paramCount = 0;
+    private int subParams = 0;
+    private int intermediates = 0;
+    private char privateMarker = 0;
+    private int state = GROUND;
+
+    public VtParser(VtHandler handler) {
+        this.handler = handler;
+    }
+
+    public void reset() {
+        state = GROUND;
+        clear();
+    }
+
+    public void feed(CharSequence text) {
+        feed(text, 0, text.length());
+    }
+
+    public void feed(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            advance(text.charAt(i));
+        }
+    }
+
+    public void advance(char c) {
+        if (c == 0x18 || c == 0x1A) {
+            leaveString();
+            handler.execute(c);
+            state = GROUND;
+            return;
+        }
+        if (c == 0x1B) {
+            leaveString();
+            clear();
+            state = ESCAPE;
+            return;
+        }
+        if (c >= 0x80 && c <= 0x9F) {
+            leaveString();
+            switch (c) {
+                case 0x90, 0x98, 0x9E, 0x9F -> state = STRING_IGNORE;
+                case 0x9B -> {
+                    clear();
+                    state = CSI_ENTRY;
+                }
+                case 0x9C -> state = GROUND;
+                case 0x9D -> {
+                    oscData.setLength(0);
+                    state = OSC_STRING;
+                }
+                default -> {
+                    handler.execute(c);
+                    state = GROUND;
+                }
+            }
+            return;
+        }
+        switch (state) {
+            case GROUND -> {
+                if (c < 0x20) {
+                    handler.execute(c);
+                } else if (c != 0x7F) {
+                    handler.print(c);
+                }
+            }
+            case ESCAPE -> {
+                if (c < 0x20) {
+                    handler.execute(c);
+                } else if (c <= 0x2F) {
+                    collect(c);
+                    state = ESCAPE_INTERMEDIATE;
+                } else if (c == '[') {
+                    clear();
+                    state = CSI_ENTRY;
+                } else if (c == ']') {
+                    oscData.setLength(0);
+                    state = OSC_STRING;
+                } else if (c == 'P' || c == 'X' || c == '^' || c == '_') {
+                    state = STRING_IGNORE;
+                } else if (c != 0x7F) {
+                    handler.escDispatch(c, intermediates);
+                    state = GROUND;
+                }
+            }
+            case ESCAPE_INTERMEDIATE -> {
+                if (c < 0x20) {
+                    handler.execute(c);
+                } else if (c <= 0x2F) {
+                    collect(c);
+                } else if (c != 0x7F) {
+                    handler.escDispatch(c, intermediates);
+                    state = GROUND;
+                }
+            }
+            case CSI_ENTRY -> {
+                if (c < 0x20) {
+                    handler.execute(c);
+                } else if (c <= 0x2F) {
+                    collect(c);
+                    state = CSI_INTERMEDIATE;
+                } else if (c <= 0x3B) {
+                    param(c);
+                    state = CSI_PARAM;
+                } else if (c <= 0x3F) {
+                    privateMarker = c;
+                    state = CSI_PARAM;
+                } else if (c != 0x7F) {
+                    dispatchCsi(c);
+                }
+            }
+            case CSI_PARAM -> {
+                if (c < 0x20) {
+                    handler.execute(c);
+                } else if (c <= 0x2F) {
+                    collect(c);
+                    state = CSI_INTERMEDIATE;
+                } else if (c <= 0x3B) {
+                    param(c);
+                } else if (c <= 0x3F) {
+                    state = CSI_IGNORE;
+                } else if (c != 0x7F) {
+                    dispatchCsi(c);
+                }
+            }
+            case CSI_INTERMEDIATE -> {
+                if (c < 0x20) {
+                    handler.execute(c);
+                } else if (c <= 0x2F) {
+                    collect(c);
+                } else if (c <= 0x3F) {
+                    state = CSI_IGNORE;
+                } else if (c != 0x7F) {
+                    dispatchCsi(c);
+                }
+            }
+            case CSI_IGNORE -> {
+                if (c < 0x20) {
+                    handler.execute(c);
+                } else if (c >= 0x40 && c != 0x7F) {
+                    state = GROUND;
+                }
+            }
+            case OSC_STRING -> {
+                if (c == 0x07) {
+                    handler.oscDispatch(oscData);
+                    oscData.setLength(0);
+                    state = GROUND;
+                } else if (c >= 0x20 && oscData.length() < MAX_OSC_LENGTH) {
+                    oscData.append(c);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void leaveString() {
+        if (state == OSC_STRING) {
+            handler.oscDispatch(oscData);
+            oscData.setLength(0);
+        }
+    }
+
+    private void dispatchCsi(char c) {
+        handler.csiDispatch(c, params, paramCount, subParams, privateMarker, intermediates);
+        state = GROUND;
+    }
+
+    private void clear() {
+        paramCount = 0;
+        subParams = 0;
+        intermediates = 0;
+        privateMarker = 0;
+    }
+
+    private void collect(char c) {
+        intermediates = (intermediates << 8) | c;
+    }
+
+    private void param(char c) {
+        if (c == ';' || c == ':') {
+            if (paramCount == 0) {
+                params[paramCount++] = 0;
+            }
+            if (paramCount < MAX_PARAMS) {
+                if (c == ':') {
+                    subParams |= 1 << paramCount;
+                }
+                params[paramCount++] = 0;
+            }
+            return;
+        }
+        if (paramCount == 0) {
+            params[paramCount++] = 0;
+        }
+        int index = paramCount - 1;
+        params[index] = Math.min(params[index] * 10 + (c - '0'), MAX_PARAM_VALUE);
+    }
+
+    public static String strip(CharSequence text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c == 0x7F || (c >= 0x80 && c <= 0x9F)) {
+                return STRIPPER.get().strip(text);
+            }
+        }
+        return text.toString();
+    }
+
+    private static final ThreadLocal<Stripper> STRIPPER = ThreadLocal.withInitial(Stripper::new);
+
+    private static final class Stripper implements VtHandler {
+        private final StringBuilder plain = new StringBuilder();
+        private final VtParser parser = new VtParser(this);
+
+        String strip(CharSequence text) {
+            plain.setLength(0);
+            parser.reset();
+            parser.feed(text);
+            String result = plain.toString();
+            if (plain.capacity() > 8192) {
+                plain.setLength(0);
+                plain.trimToSize();
+            }
+            return result;
+        }
+
+        @Override
+        public void print(char c) {
+            plain.append(c);
+        }
+
+        @Override
+        public void execute(char c) {
+            if (c == '\t') {
+                plain.append("    ");
+            }
+        }
+
+        @Override
+        public void csiDispatch(char command, int[] params, int paramCount, int subParams, char privateMarker, int intermediates) {
+        }
+
+        @Override
+        public void escDispatch(char command, int intermediates) {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package redxax.oxy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSchedulerTest {
+
+    @Test
+    void cancelAndJoinWaitsForRunningTask() throws InterruptedException {
+        TaskScheduler.Group group = TaskScheduler.group("join-test");
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicBoolean exited = new AtomicBoolean();
+        group.submit(TaskScheduler.Lane.IO, () -> {
+            running.countDown();
+            long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            exited.set(true);
+        });
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        group.cancelAndJoin();
+        assertTrue(exited.get());
+        assertEquals(0, group.getPendingTasks());
+    }
+
+    @Test
+    void cancelAndJoinSkipsTasksThatNeverStarted() throws InterruptedException {
+        TaskScheduler.Group group = TaskScheduler.serialGroup("serial-join-test");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+        group.submit(TaskScheduler.Lane.IO, () -> {
+            running.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        group.submit(TaskScheduler.Lane.IO, () -> queuedRan.set(true));
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        group.cancelAndJoin();
+        release.countDown();
+        assertFalse(queuedRan.get());
+        assertEquals(0, group.getPendingTasks());
+    }
+}
@@ -0,0 +1,62 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FloodGuardTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sameIgnoringNumbersMatchesLinesThatDifferOnlyInDigits() {
+        assertTrue(FloodGuard.sameIgnoringNumbers("Saved 12 chunks in 340ms", "Saved 7 chunks in 1021ms"));
+        assertTrue(FloodGuard.sameIgnoringNumbers("[12:00:01] tick", "[12:00:02] tick"));
+        assertTrue(FloodGuard.sameIgnoringNumbers("", ""));
+        assertTrue(FloodGuard.sameIgnoringNumbers("no digits", "no digits"));
+    }
+
+    @Test
+    void sameIgnoringNumbersRejectsOtherDifferences() {
+        assertFalse(FloodGuard.sameIgnoringNumbers("Saved 12 chunks", "Saved 12 blocks"));
+        assertFalse(FloodGuard.sameIgnoringNumbers("value 12", "value"));
+        assertFalse(FloodGuard.sameIgnoringNumbers("value", "value 12"));
+        assertFalse(FloodGuard.sameIgnoringNumbers("12 a", "a 12"));
+        assertFalse(FloodGuard.sameIgnoringNumbers("1.5", "15"));
+    }
+
+    @Test
+    void admitsUpToTheLimitThenSamples() throws IOException {
+        Path log = tempDir.resolve("flood.log");
+        FloodGuard guard = new FloodGuard(log);
+        guard.setMaxLinesPerSecond(10);
+        int admitted = 0;
+        for (int i = 0; i < 110; i++) {
+            if (guard.admit("line " + i)) {
+                admitted++;
+            }
+        }
+        guard.close();
+        assertEquals(12, admitted);
+        assertEquals(98, guard.getTotalSuppressed());
+        assertEquals(100, Files.readAllLines(log).size());
+    }
+
+    @Test
+    void shedCountsLinesAndLogsThemPlain() throws IOException {
+        Path log = tempDir.resolve("flood.log");
+        FloodGuard guard = new FloodGuard(log);
+        guard.shed("\u001B[31ma\nb\n");
+        guard.shed("partial");
+        assertEquals(3, guard.takeShedReport());
+        assertEquals(0, guard.takeShedReport());
+        assertEquals(3, guard.getTotalShed());
+        guard.close();
+        assertEquals("a\nb\npartial\n", Files.readString(log));
+    }
+}
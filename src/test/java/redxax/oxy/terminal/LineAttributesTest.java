@@ -0,0 +1,93 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LineAttributesTest {
+    private static final int WARN = 3;
+
+    @Test
+    void filterIndexFindsNeighbouringMatches() {
+        LineAttributes attributes = new LineAttributes();
+        for (int i = 0; i < 100; i++) {
+            attributes.set(i, i % 10 == 0 ? WARN : 1, 0);
+        }
+        attributes.setFilter(WARN, -1);
+        assertTrue(attributes.isFiltering());
+        assertEquals(40, attributes.previousMatch(45));
+        assertEquals(30, attributes.previousMatch(40));
+        assertEquals(50, attributes.nextMatch(45));
+        assertEquals(60, attributes.nextMatch(50));
+        assertEquals(-1, attributes.previousMatch(0));
+        assertEquals(Long.MAX_VALUE, attributes.nextMatch(90));
+    }
+
+    @Test
+    void filterIndexFollowsUpdatesAndTrim() {
+        LineAttributes attributes = new LineAttributes();
+        attributes.setFilter(WARN, -1);
+        attributes.set(0, WARN, 0);
+        attributes.set(1, 1, 0);
+        attributes.set(2, WARN, 0);
+        attributes.set(2, 1, 0);
+        attributes.set(1, WARN, 0);
+        assertEquals(1, attributes.nextMatch(0));
+        assertEquals(Long.MAX_VALUE, attributes.nextMatch(1));
+        attributes.trim(1);
+        assertEquals(-1, attributes.previousMatch(1));
+        attributes.reset(10);
+        assertEquals(Long.MAX_VALUE, attributes.nextMatch(0));
+    }
+
+    @Test
+    void filterIndexAgreesWithAScan() {
+        Random random = new Random(7);
+        LineAttributes attributes = new LineAttributes();
+        attributes.setFilter(WARN, 1);
+        long first = 0;
+        long end = 0;
+        for (int step = 0; step < 20_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 7) {
+                attributes.set(end++, random.nextInt(6), random.nextInt(3));
+            } else if (op < 9 && end > first) {
+                attributes.set(first + random.nextInt((int) (end - first)), random.nextInt(6), random.nextInt(3));
+            } else {
+                first = Math.min(end, first + random.nextInt(40));
+                attributes.trim(first);
+            }
+        }
+        for (long query = first; query <= end; query++) {
+            long previous = -1;
+            for (long i = query - 1; i >= first; i--) {
+                if (attributes.matchesFilter(i)) {
+                    previous = i;
+                    break;
+                }
+            }
+            long next = Long.MAX_VALUE;
+            for (long i = query + 1; i < end; i++) {
+                if (attributes.matchesFilter(i)) {
+                    next = i;
+                    break;
+                }
+            }
+            assertEquals(previous, attributes.previousMatch(query));
+            assertEquals(next, attributes.nextMatch(query));
+        }
+    }
+
+    @Test
+    void clearingTheFilterDropsTheIndex() {
+        LineAttributes attributes = new LineAttributes();
+        attributes.set(0, 1, 2);
+        attributes.setFilter(0, 2);
+        assertTrue(attributes.matchesFilter(0));
+        attributes.setFilter(0, -1);
+        assertFalse(attributes.isFiltering());
+        assertTrue(attributes.matchesFilter(5));
+    }
+}
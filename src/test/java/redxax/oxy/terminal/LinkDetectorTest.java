@@ -0,0 +1,64 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LinkDetectorTest {
+
+    @Test
+    void detectsUrlsWithoutTrailingPunctuation() {
+        String text = "See https://example.com/docs?page=2. Or (http://localhost:8080/status)";
+        List<LinkDetector.Link> links = LinkDetector.detect(text);
+        assertEquals(2, links.size());
+        assertEquals(LinkDetector.URL, links.get(0).kind());
+        assertEquals("https://example.com/docs?page=2", links.get(0).target());
+        assertEquals(text.indexOf("https"), links.get(0).start());
+        assertEquals("http://localhost:8080/status", links.get(1).target());
+    }
+
+    @Test
+    void detectsPathsWithLineNumbers() {
+        String text = "error at src/main/java/Foo.java:42 and Bar.java:7";
+        List<LinkDetector.Link> links = LinkDetector.detect(text);
+        assertEquals(2, links.size());
+        assertEquals(LinkDetector.PATH, links.get(0).kind());
+        assertEquals("src/main/java/Foo.java", links.get(0).target());
+        assertEquals(42, links.get(0).line());
+        assertEquals("src/main/java/Foo.java:42", text.substring(links.get(0).start(), links.get(0).end()));
+        assertEquals("Bar.java", links.get(1).target());
+        assertEquals(7, links.get(1).line());
+    }
+
+    @Test
+    void detectsRootedPaths() {
+        assertEquals("/var/log/latest.log", LinkDetector.detect("tail /var/log/latest.log").get(0).target());
+        assertEquals("~/servers/world", LinkDetector.detect("cd ~/servers/world").get(0).target());
+        assertEquals("C:\\Users\\me\\server.properties", LinkDetector.detect("open C:\\Users\\me\\server.properties").get(0).target());
+    }
+
+    @Test
+    void ignoresTextWithoutLinks() {
+        assertTrue(LinkDetector.detect("plain text").isEmpty());
+        assertTrue(LinkDetector.detect("ratio 3/4 at 12:30").isEmpty());
+        assertTrue(LinkDetector.detect("and/or").isEmpty());
+    }
+
+    @Test
+    void pathsInsideUrlsAreNotReportedTwice() {
+        List<LinkDetector.Link> links = LinkDetector.detect("https://example.com/files/readme.txt");
+        assertEquals(1, links.size());
+        assertEquals(LinkDetector.URL, links.get(0).kind());
+    }
+
+    @Test
+    void findReturnsTheLinkUnderAnIndex() {
+        String text = "go to https://example.com now";
+        List<LinkDetector.Link> links = LinkDetector.detect(text);
+        assertNotNull(LinkDetector.find(links, text.indexOf("example")));
+        assertNull(LinkDetector.find(links, 0));
+        assertNull(LinkDetector.find(links, text.indexOf(" now")));
+    }
+}
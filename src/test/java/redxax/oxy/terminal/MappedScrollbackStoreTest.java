@@ -0,0 +1,179 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedScrollbackStoreTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void appendsAndReadsBackLines() throws IOException {
+        MappedScrollbackStore store = new MappedScrollbackStore(tempDir.resolve("segments"));
+        try {
+            store.append("first");
+            store.append("");
+            store.append("café 世界");
+            store.replaceLast("last");
+            assertEquals(3, store.endIndex());
+            assertEquals("first", store.get(0));
+            assertEquals("", store.get(1));
+            assertEquals("last", store.last());
+            assertTrue(store.isDiskBacked());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void saveCopiesOnlyWrittenBytes() throws IOException {
+        MappedScrollbackStore store = new MappedScrollbackStore(tempDir.resolve("segments"));
+        Path saved = tempDir.resolve("saved.txt");
+        try {
+            store.append("one");
+            store.append("two é");
+            store.saveTo(saved);
+            store.append("three");
+            store.replaceLast("changed");
+            store.clear();
+        } finally {
+            store.close();
+        }
+        assertEquals("one\ntwo é", Files.readString(saved, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void loadCopiesWithoutTouchingTheSource() throws IOException {
+        Path segments = tempDir.resolve("segments");
+        Path source = tempDir.resolve("source.txt");
+        Files.writeString(source, "alpha\nbeta\n世界", StandardCharsets.UTF_8);
+        MappedScrollbackStore store = new MappedScrollbackStore(segments);
+        try {
+            store.loadFrom(source);
+            assertEquals(3, store.endIndex());
+            assertEquals("alpha", store.get(0));
+            assertEquals("beta", store.get(1));
+            assertEquals("世界", store.get(2));
+            store.append("gamma");
+            assertEquals("gamma", store.last());
+        } finally {
+            store.close();
+        }
+        assertEquals("alpha\nbeta\n世界", Files.readString(source, StandardCharsets.UTF_8));
+        try (var remaining = Files.list(segments)) {
+            assertEquals(0, remaining.count());
+        }
+    }
+
+    @Test
+    void loadIntoNonEmptyStoreAppends() throws IOException {
+        Path source = tempDir.resolve("source.txt");
+        Files.writeString(source, "tail\nnext", StandardCharsets.UTF_8);
+        MappedScrollbackStore store = new MappedScrollbackStore(tempDir.resolve("segments"));
+        try {
+            store.append("head ");
+            store.loadFrom(source);
+            assertEquals("head tail", store.get(0));
+            assertEquals("next", store.get(1));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void saveAndLoadRoundTrip() throws IOException {
+        Path saved = tempDir.resolve("saved.txt");
+        MappedScrollbackStore first = new MappedScrollbackStore(tempDir.resolve("a"));
+        try {
+            for (int i = 0; i < 10_000; i++) {
+                first.append("line " + i);
+            }
+            first.saveTo(saved);
+        } finally {
+            first.close();
+        }
+        MappedScrollbackStore second = new MappedScrollbackStore(tempDir.resolve("b"));
+        try {
+            second.loadFrom(saved);
+            assertEquals(10_000, second.endIndex());
+            assertEquals("line 0", second.get(0));
+            assertEquals("line 5000", second.get(5000));
+            assertEquals("line 9999", second.last());
+        } finally {
+            second.close();
+        }
+    }
+
+    @Test
+    void clearKeepsIndicesAndEmptiesSegment() throws IOException {
+        MappedScrollbackStore store = new MappedScrollbackStore(tempDir.resolve("segments"));
+        try {
+            store.append("a");
+            store.append("b");
+            store.clear();
+            assertTrue(store.isEmpty());
+            assertEquals(0, store.diskBytes());
+            store.append("c");
+            assertEquals(2, store.firstIndex());
+            assertEquals("c", store.get(2));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void readsAcrossMappedWindowsInBothDirections() throws IOException {
+        MappedScrollbackStore store = new MappedScrollbackStore(tempDir.resolve("segments"));
+        try {
+            String padding = "x".repeat(200);
+            int count = 50_000;
+            for (int i = 0; i < count; i++) {
+                store.append(i + " " + padding);
+            }
+            assertTrue(store.diskBytes() > 8L * 1024 * 1024);
+            for (int i = count - 1; i >= 0; i -= 97) {
+                assertEquals(i + " " + padding, store.get(i));
+            }
+            for (int i = 0; i < count; i += 89) {
+                assertEquals(i + " " + padding, store.get(i));
+            }
+            store.append("tail");
+            assertEquals("tail", store.get(count));
+            store.replaceLast("tail, rewritten");
+            assertEquals("tail, rewritten", store.last());
+            assertEquals((count - 1) + " " + padding, store.get(count - 1));
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void bulkReaderSeesRewritesAndLongLines() throws IOException {
+        MappedScrollbackStore store = new MappedScrollbackStore(tempDir.resolve("segments"));
+        try {
+            ScrollbackStore.LineReader reader = store.bulkReader();
+            for (int i = 0; i < 10_000; i++) {
+                store.append("line " + i);
+            }
+            String longLine = "y".repeat(300_000);
+            store.append(longLine);
+            store.append("progress 1%");
+            for (long index = store.endIndex() - 1; index >= 0; index--) {
+                assertEquals(store.get(index), reader.get(index));
+            }
+            store.replaceLast("progress 99%");
+            assertEquals("progress 99%", reader.get(store.endIndex() - 1));
+            assertEquals(longLine, reader.get(10_000));
+            assertNull(reader.get(store.endIndex()));
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScrollbackBufferTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void evictsOldestLinesOverLineLimit() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(10, Long.MAX_VALUE);
+        for (int i = 0; i < 25; i++) {
+            buffer.append("line " + i);
+        }
+        assertEquals(15, buffer.firstIndex());
+        assertEquals(25, buffer.endIndex());
+        assertNull(buffer.get(14));
+        assertEquals("line 15", buffer.get(15));
+        assertEquals("line 24", buffer.last());
+    }
+
+    @Test
+    void evictsOldestLinesOverByteLimit() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(1000, 500);
+        for (int i = 0; i < 20; i++) {
+            buffer.append("0123456789");
+        }
+        assertTrue(buffer.retainedBytes() <= 500);
+        assertEquals(8, buffer.endIndex() - buffer.firstIndex());
+        assertEquals(20, buffer.endIndex());
+    }
+
+    @Test
+    void keepsLastLineEvenWhenOverBudget() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(1000, 1);
+        buffer.append("first");
+        buffer.append("second");
+        assertEquals(1, buffer.firstIndex());
+        assertEquals("second", buffer.last());
+    }
+
+    @Test
+    void evictsAcrossChunkBoundaries() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(5000, Long.MAX_VALUE);
+        for (int i = 0; i < 20_000; i++) {
+            buffer.append(Integer.toString(i));
+        }
+        assertEquals(15_000, buffer.firstIndex());
+        for (long index = buffer.firstIndex(); index < buffer.endIndex(); index += 997) {
+            assertEquals(Long.toString(index), buffer.get(index));
+        }
+    }
+
+    @Test
+    void replaceLastUpdatesRetainedBytes() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer();
+        buffer.append("short");
+        long before = buffer.retainedBytes();
+        buffer.replaceLast("a much longer line");
+        assertEquals("a much longer line", buffer.last());
+        assertEquals(before + 2L * ("a much longer line".length() - "short".length()), buffer.retainedBytes());
+    }
+
+    @Test
+    void clearKeepsIndicesMonotonic() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer();
+        buffer.append("a");
+        buffer.append("b");
+        long version = buffer.version();
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        assertEquals(2, buffer.firstIndex());
+        assertTrue(buffer.version() > version);
+        buffer.append("c");
+        assertEquals("c", buffer.get(2));
+        assertEquals(42, buffer.retainedBytes());
+    }
+
+    @Test
+    void shrinkingLimitsEvictsImmediately() {
+        ScrollbackBuffer buffer = new ScrollbackBuffer();
+        for (int i = 0; i < 100; i++) {
+            buffer.append("line " + i);
+        }
+        buffer.setLimits(10, Long.MAX_VALUE);
+        assertEquals(90, buffer.firstIndex());
+        assertEquals("line 90", buffer.get(90));
+    }
+
+    @Test
+    void compressColdPacksOnlySealedMiddleChunks() {
+        ScrollbackBuffer buffer = filled(4 * 4096 + 10);
+        long heap = buffer.heapBytes();
+        long saved = buffer.compressCold();
+        assertTrue(saved > 0);
+        assertEquals(heap - saved, buffer.heapBytes());
+        assertEquals(heap, buffer.retainedBytes());
+        assertEquals(0, buffer.compressCold());
+        buffer.append("tail");
+        assertEquals("tail", buffer.last());
+    }
+
+    @Test
+    void packedChunksInflateToTheSameLines() {
+        int count = 4 * 4096 + 10;
+        ScrollbackBuffer buffer = filled(count);
+        buffer.compressCold();
+        for (long index = 0; index < count; index += 311) {
+            assertEquals(lineFor(index), buffer.get(index));
+        }
+        assertEquals(lineFor(4096), buffer.get(4096));
+        assertEquals(buffer.retainedBytes(), buffer.heapBytes());
+    }
+
+    @Test
+    void bulkReaderLeavesPackedChunksCompressed() {
+        int count = 4 * 4096 + 10;
+        ScrollbackBuffer buffer = filled(count);
+        buffer.compressCold();
+        long heap = buffer.heapBytes();
+        ScrollbackStore.LineReader reader = buffer.bulkReader();
+        for (long index = count - 1; index >= 0; index--) {
+            assertEquals(lineFor(index), reader.get(index));
+        }
+        assertNull(reader.get(count));
+        assertEquals(heap, buffer.heapBytes());
+        buffer.replaceLast("tail");
+        assertEquals("tail", reader.get(count - 1));
+    }
+
+    @Test
+    void evictionAndSaveReadPackedChunks() throws IOException {
+        int count = 4 * 4096 + 10;
+        ScrollbackBuffer buffer = filled(count);
+        buffer.compressCold();
+        Path saved = tempDir.resolve("scrollback.txt");
+        buffer.saveTo(saved);
+        String[] lines = Files.readString(saved).split("\n", -1);
+        assertEquals(count, lines.length);
+        assertEquals(lineFor(5000), lines[5000]);
+        buffer.setLimits(4096, Long.MAX_VALUE);
+        assertEquals(count - 4096, buffer.firstIndex());
+        assertEquals(lineFor(count - 4096), buffer.get(count - 4096));
+        assertEquals(buffer.retainedBytes(), buffer.heapBytes());
+    }
+
+    private static ScrollbackBuffer filled(int count) {
+        ScrollbackBuffer buffer = new ScrollbackBuffer(Integer.MAX_VALUE, Long.MAX_VALUE);
+        for (int i = 0; i < count; i++) {
+            buffer.append(lineFor(i));
+        }
+        return buffer;
+    }
+
+    private static String lineFor(long index) {
+        return "[12:00:00] [Server thread/INFO]: line " + index + (index % 7 == 0 ? " \u00e9\u4e16" : "");
+    }
+}
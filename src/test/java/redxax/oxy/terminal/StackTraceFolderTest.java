@@ -0,0 +1,40 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StackTraceFolderTest {
+
+    @Test
+    void classifiesHeaders() {
+        assertEquals(StackTraceFolder.HEADER, StackTraceFolder.classify("java.lang.IllegalStateException: boom"));
+        assertEquals(StackTraceFolder.HEADER, StackTraceFolder.classify("java.lang.OutOfMemoryError"));
+        assertEquals(StackTraceFolder.HEADER, StackTraceFolder.classify("Exception in thread \"main\" java.lang.RuntimeException"));
+        assertEquals(StackTraceFolder.HEADER, StackTraceFolder.classify("\u001B[31mnet.minecraft.util.crash.CrashException: Ticking entity\u001B[0m"));
+    }
+
+    @Test
+    void classifiesFrames() {
+        assertEquals(StackTraceFolder.FRAME, StackTraceFolder.classify("\tat com.example.Main.run(Main.java:42)"));
+        assertEquals(StackTraceFolder.FRAME, StackTraceFolder.classify("    at java.base/java.lang.Thread.run(Thread.java:1583)"));
+        assertEquals(StackTraceFolder.FRAME, StackTraceFolder.classify("at com.example.Main.run(Main.java:42)"));
+    }
+
+    @Test
+    void classifiesCausesAndElisions() {
+        assertEquals(StackTraceFolder.CAUSE, StackTraceFolder.classify("Caused by: java.io.IOException: closed"));
+        assertEquals(StackTraceFolder.CAUSE, StackTraceFolder.classify("\tSuppressed: java.io.IOException"));
+        assertEquals(StackTraceFolder.MORE, StackTraceFolder.classify("\t... 12 more"));
+    }
+
+    @Test
+    void leavesOrdinaryLinesAlone() {
+        assertEquals(StackTraceFolder.OTHER, StackTraceFolder.classify(""));
+        assertEquals(StackTraceFolder.OTHER, StackTraceFolder.classify("[12:00:00] [Server thread/INFO]: Done (3.2s)!"));
+        assertEquals(StackTraceFolder.OTHER, StackTraceFolder.classify("at spawn now"));
+        assertEquals(StackTraceFolder.OTHER, StackTraceFolder.classify("[12:00:00] [Server thread/ERROR]: Error executing task"));
+        assertEquals(StackTraceFolder.OTHER, StackTraceFolder.classify("  java.lang.IllegalStateException: indented"));
+        assertEquals(StackTraceFolder.OTHER, StackTraceFolder.classify("Exceptional performance today"));
+    }
+}
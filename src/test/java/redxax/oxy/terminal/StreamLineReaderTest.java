@@ -0,0 +1,136 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamLineReaderTest {
+
+    @Test
+    void decodesMultiByteCharactersSplitAcrossSingleByteReads() throws IOException {
+        String text = "é世界 🎉\nnext ü\n";
+        StreamLineReader reader = new StreamLineReader(new OneByteInputStream(text.getBytes(StandardCharsets.UTF_8)), 16);
+        assertEquals(text, readAll(reader));
+        assertEquals(2, reader.getLinesRead());
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, reader.getBytesRead());
+    }
+
+    @Test
+    void returnsCompleteLinesAndHoldsPartialOnes() throws IOException {
+        StreamLineReader reader = new StreamLineReader(new OneByteInputStream("ab\ncd".getBytes(StandardCharsets.UTF_8)), 64);
+        assertEquals("ab\n", reader.readBatch());
+        assertEquals("cd", reader.readBatch());
+        assertNull(reader.readBatch());
+    }
+
+    @Test
+    void dropsNulCharacters() throws IOException {
+        StreamLineReader reader = new StreamLineReader(new ByteArrayInputStream("a\u0000b\n".getBytes(StandardCharsets.UTF_8)), 64);
+        assertEquals("ab\n", reader.readBatch());
+    }
+
+    @Test
+    void replacesMalformedInputAtEndOfStream() throws IOException {
+        byte[] bytes = {'o', 'k', '\n', (byte) 0xE4, (byte) 0xB8};
+        StreamLineReader reader = new StreamLineReader(new OneByteInputStream(bytes), 8);
+        assertEquals("ok\n�", readAll(reader));
+    }
+
+    @Test
+    void handlesLinesLongerThanTheBuffer() throws IOException {
+        String line = "ö".repeat(100) + "\n";
+        StreamLineReader reader = new StreamLineReader(new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8)), 7);
+        assertEquals(line, readAll(reader));
+    }
+
+    @Test
+    void unbufferedReaderHandsOutPromptsWithoutNewline() throws IOException {
+        ChunkedInputStream input = new ChunkedInputStream("last login\nuser@host:~$ ", "ls\r\n");
+        StreamLineReader reader = new StreamLineReader(input, 64, false);
+        assertEquals("last login\nuser@host:~$ ", reader.readBatch());
+        assertEquals("ls\r\n", reader.readBatch());
+        assertNull(reader.readBatch());
+        assertEquals(2, reader.getLinesRead());
+    }
+
+    @Test
+    void unbufferedReaderKeepsSplitCharactersTogether() throws IOException {
+        String text = "\u001B[?1049h世界\u001B[H";
+        StreamLineReader reader = new StreamLineReader(new OneByteInputStream(text.getBytes(StandardCharsets.UTF_8)), 16, false);
+        StringBuilder out = new StringBuilder();
+        String batch;
+        while ((batch = reader.readBatch()) != null) {
+            assertFalse(batch.contains("\uFFFD"));
+            out.append(batch);
+        }
+        assertEquals(text, out.toString());
+    }
+
+    private static String readAll(StreamLineReader reader) throws IOException {
+        StringBuilder out = new StringBuilder();
+        String batch;
+        while ((batch = reader.readBatch()) != null) {
+            out.append(batch);
+        }
+        return out.toString();
+    }
+
+    private static class ChunkedInputStream extends InputStream {
+        private final byte[][] chunks;
+        private int next = 0;
+
+        ChunkedInputStream(String... chunks) {
+            this.chunks = new byte[chunks.length][];
+            for (int i = 0; i < chunks.length; i++) {
+                this.chunks[i] = chunks[i].getBytes(StandardCharsets.UTF_8);
+            }
+        }
+
+        @Override
+        public int read() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (next == chunks.length) {
+                return -1;
+            }
+            byte[] chunk = chunks[next++];
+            System.arraycopy(chunk, 0, target, offset, chunk.length);
+            return chunk.length;
+        }
+    }
+
+    private static class OneByteInputStream extends InputStream {
+        private final byte[] bytes;
+        private int position = 0;
+
+        OneByteInputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] target, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int next = read();
+            if (next < 0) {
+                return -1;
+            }
+            target[offset] = (byte) next;
+            return 1;
+        }
+    }
+}
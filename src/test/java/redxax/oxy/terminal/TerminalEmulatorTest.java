@@ -0,0 +1,128 @@
+package redxax.oxy.terminal;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerminalEmulatorTest {
+    private final List<String> events = new ArrayList<>();
+    private final List<String> responses = new ArrayList<>();
+    private final TerminalEmulator emulator = new TerminalEmulator(new TerminalEmulator.OutputSink() {
+        @Override
+        public void write(String text) {
+            events.add(text);
+        }
+
+        @Override
+        public void clearLine() {
+            events.add("<clear>");
+        }
+
+        @Override
+        public void backspace() {
+            events.add("<bs>");
+        }
+    }, responses::add);
+
+    @Test
+    void carriageReturnRewritesTheLine() {
+        emulator.feed("10%\r20%\r30%\n");
+        assertEquals(List.of("10%", "<clear>", "20%", "<clear>", "30%\n"), events);
+    }
+
+    @Test
+    void crlfDoesNotClearTheLine() {
+        emulator.feed("done\r\nnext");
+        assertEquals(List.of("done\nnext"), events);
+    }
+
+    @Test
+    void eraseLineAfterCarriageReturnClears() {
+        emulator.feed("loading\r\u001B[K");
+        assertEquals(List.of("loading", "<clear>"), events);
+    }
+
+    @Test
+    void eraseLineWithoutCarriageReturnIsIgnored() {
+        emulator.feed("text\u001B[K more");
+        assertEquals(List.of("text more"), events);
+    }
+
+    @Test
+    void eraseEntireLineAlwaysClears() {
+        emulator.feed("text\u001B[2Kafter");
+        assertEquals(List.of("text", "<clear>", "after"), events);
+    }
+
+    @Test
+    void backspaceEditsPendingTextOrTheSink() {
+        emulator.feed("ab\b");
+        emulator.feed("\b\b");
+        assertEquals(List.of("a", "<bs>", "<bs>"), events);
+    }
+
+    @Test
+    void alternateScreenDrawsToTheGridOnly() {
+        emulator.feed("before\n\u001B[?1049h");
+        assertTrue(emulator.isAltScreen());
+        emulator.feed("\u001B[2;3HX\u001B[1;1Hhello\u001B[1;3H\u001B[K");
+        ScreenGrid screen = emulator.getScreen();
+        assertEquals('X', screen.getChar(1, 2));
+        assertEquals('h', screen.getChar(0, 0));
+        assertEquals('e', screen.getChar(0, 1));
+        assertEquals(' ', screen.getChar(0, 2));
+        assertEquals(' ', screen.getChar(0, 4));
+        emulator.feed("\u001B[?1049l");
+        assertFalse(emulator.isAltScreen());
+        emulator.feed("after\n");
+        assertEquals(List.of("before\n", "after\n"), events);
+    }
+
+    @Test
+    void alternateScreenCarriageReturnMovesTheCursor() {
+        emulator.feed("\u001B[?1049habc\rX");
+        assertEquals('X', emulator.getScreen().getChar(0, 0));
+        assertEquals('b', emulator.getScreen().getChar(0, 1));
+        assertEquals(1, emulator.getScreen().getCursorX());
+    }
+
+    @Test
+    void sequencesSplitAcrossFeedsAreParsed() {
+        emulator.feed("\u001B[?104");
+        emulator.feed("9h\u001B[3;");
+        emulator.feed("4HZ");
+        assertTrue(emulator.isAltScreen());
+        assertEquals('Z', emulator.getScreen().getChar(2, 3));
+    }
+
+    @Test
+    void answersDeviceAttributeAndStatusQueries() {
+        emulator.feed("\u001B[c\u001B[5n\u001B[?1049h\u001B[3;5H\u001B[6n");
+        assertEquals(List.of("\u001B[?1;2c", "\u001B[0n", "\u001B[3;5R"), responses);
+    }
+
+    @Test
+    void stripRemovesEscapesAndExpandsTabs() {
+        assertEquals("red plain", VtParser.strip("\u001B[31mred\u001B[0m plain"));
+        assertEquals("a    b", VtParser.strip("a\tb"));
+        assertEquals("after", VtParser.strip("\u001B]0;title\u0007after"));
+        assertEquals("next", VtParser.strip("next"));
+        String plain = "no escapes here";
+        assertSame(plain, VtParser.strip(plain));
+    }
+
+    @Test
+    void colonSubParametersStayWithTheirSgrCode() {
+        emulator.feed("\u001B[38:2::255:128:0mrgb\u001B[0m\u001B[48:5:196;4:3mline");
+        assertEquals(List.of("\u001B[0;38;2;255;128;0mrgb\u001B[0m\u001B[0;4;48;2;255;0;0mline"), events);
+    }
+
+    @Test
+    void colonFormLeavesFollowingCodesAlone() {
+        emulator.feed("\u001B[4;38:2:10:20:30;1m*\u001B[4:0m-");
+        assertEquals(List.of("\u001B[0;1;4;38;2;10;20;30m*\u001B[0;1;38;2;10;20;30m-"), events);
+    }
+}